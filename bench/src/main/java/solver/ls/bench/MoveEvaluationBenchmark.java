@@ -0,0 +1,69 @@
+package solver.ls.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import solver.ls.bench.SolutionState.Shape;
+import solver.ls.data.Interchange;
+import solver.ls.data.RouteList;
+import solver.ls.incremental.EdgeDeltaCalculators;
+
+/**
+ * Evaluation of a single move: the length delta, the excess capacity and the penalized objective.
+ * Every invocation evaluates the next of the pre-generated moves, so that the branches and memory
+ * accesses vary like in the search.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoveEvaluationBenchmark {
+
+  @Param({"ONE_ZERO", "ONE_ONE", "TWO_TWO", "TWO_OPT_STAR", "CROSS"})
+  public Shape shape;
+
+  private Interchange[] moves;
+  private int next = 0;
+
+  @Setup(Level.Trial)
+  public void generateMoves(SolutionState state) {
+    moves = state.moves(shape, new Random(29510));
+  }
+
+  private Interchange nextMove() {
+    next = (next + 1) & (SolutionState.NUM_MOVES - 1);
+    return moves[next];
+  }
+
+  @Benchmark
+  public double edgeDelta(SolutionState state) {
+    return EdgeDeltaCalculators.edgeDelta(nextMove(), state.routeList, state.problem.distances);
+  }
+
+  @Benchmark
+  public int excessCapacity(SolutionState state) {
+    Interchange move = nextMove();
+    RouteList routeList = state.routeList;
+    return routeList.excessCapacity(move, routeList.routes[move.routeIdx1],
+        routeList.routes[move.routeIdx2]);
+  }
+
+  @Benchmark
+  public double objective(SolutionState state) {
+    return state.routeList.objective(nextMove(), state.params.excessCapacityBasePenalty,
+        state.params.customerUseBasePenalty, 1000, false);
+  }
+}
@@ -0,0 +1,77 @@
+package solver.ls.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import solver.ls.bench.SolutionState.Shape;
+import solver.ls.data.Interchange;
+import solver.ls.data.Route;
+import solver.ls.incremental.EdgeDeltaCalculators;
+
+/**
+ * Applying a customer interchange to the arrays of two routes. The routes are restored from the
+ * current solution before every move, so subtract the restoreRoutes baseline from
+ * performRawInterchange.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PerformBenchmark {
+
+  @Param({"ONE_ZERO", "ONE_ONE", "TWO_TWO"})
+  public Shape shape;
+
+  private Interchange[] moves;
+  private Route[] original;
+  private Route[] scratch;
+  private int next = 0;
+
+  @Setup(Level.Trial)
+  public void generateMoves(SolutionState state) {
+    moves = state.moves(shape, new Random(29510));
+    original = state.routeList.routes;
+    scratch = state.routeList.clone().routes;
+  }
+
+  private Interchange restoreNextMove() {
+    next = (next + 1) & (SolutionState.NUM_MOVES - 1);
+    Interchange move = moves[next];
+    restore(move.routeIdx1);
+    restore(move.routeIdx2);
+    return move;
+  }
+
+  private void restore(int routeIdx) {
+    Route route = original[routeIdx];
+    System.arraycopy(route.customers, 0, scratch[routeIdx].customers, 0, route.length);
+    scratch[routeIdx].length = route.length;
+  }
+
+  @Benchmark
+  public Interchange restoreRoutes() {
+    return restoreNextMove();
+  }
+
+  @Benchmark
+  public Route performRawInterchange() {
+    Interchange move = restoreNextMove();
+    Route route1 = scratch[move.routeIdx1];
+    EdgeDeltaCalculators.performRawInterchange(route1, scratch[move.routeIdx2],
+        move.insertionList1, move.insertionList2);
+    return route1;
+  }
+}
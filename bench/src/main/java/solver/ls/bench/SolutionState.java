@@ -0,0 +1,202 @@
+package solver.ls.bench;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import solver.ls.data.Insertion;
+import solver.ls.data.Interchange;
+import solver.ls.data.Route;
+import solver.ls.data.RouteList;
+import solver.ls.data.Segment;
+import solver.ls.data.TabuItem;
+import solver.ls.instances.SLSParams;
+import solver.ls.instances.VRPInstanceSLS;
+import solver.ls.instances.VRPProblem;
+import solver.ls.interchanges.BestRandom2ICalculator;
+import solver.ls.utils.Verbosity;
+
+/**
+ * Real solution to benchmark on: an instance from input/ with its stored solution from
+ * solutions/, as the search sees it after a warm start. The files are looked up relative to the
+ * vrp.root system property, the current directory by default.
+ *
+ * <p>The solution must exist, otherwise the benchmarks would run on a freshly packed initial
+ * solution instead of a good one.
+ */
+@State(Scope.Benchmark)
+public class SolutionState {
+
+  /**
+   * Number of pre-generated moves per shape, a power of two.
+   */
+  public static final int NUM_MOVES = 1024;
+
+  /**
+   * Shapes of the moves evaluated by the search.
+   */
+  public enum Shape {
+    /**
+     * (1,0)-interchange: one customer moves to another route.
+     */
+    ONE_ZERO,
+    /**
+     * (1,1)-interchange: two routes swap a customer.
+     */
+    ONE_ONE,
+    /**
+     * (2,2)-interchange: two routes swap two customers.
+     */
+    TWO_TWO,
+    /**
+     * 2-opt*: two routes swap their tails.
+     */
+    TWO_OPT_STAR,
+    /**
+     * Cross exchange: two routes swap short, possibly reversed segments.
+     */
+    CROSS
+  }
+
+  @Param({"41_14_1", "151_15_1", "386_47_1"})
+  public String instance;
+  /**
+   * Number of customers in the short-term memory.
+   */
+  @Param({"16"})
+  public int tabuListSize;
+
+  public VRPProblem problem;
+  public SLSParams params;
+  /**
+   * Current solution, with normalized length.
+   */
+  public RouteList routeList;
+  /**
+   * Tabu list holding random customers.
+   */
+  public List<TabuItem> shortTermMemory;
+  /**
+   * Indices of the routes with at least one customer.
+   */
+  public int[] usedRoutes;
+  /**
+   * Route and position of every customer of the current solution.
+   */
+  public int[] routeOfCustomer;
+  public int[] positionOfCustomer;
+
+  @Setup(Level.Trial)
+  public void load() throws IOException {
+    Path root = Paths.get(System.getProperty("vrp.root", "."));
+    Path input = root.resolve("input").resolve(instance + ".vrp");
+    Path solution = root.resolve("solutions").resolve(instance + ".vrp.sol");
+    if (!Files.exists(solution)) {
+      throw new IllegalStateException("No stored solution " + solution);
+    }
+
+    problem = VRPProblem.load(input.toString(), Verbosity.QUIET, false);
+    params = new SLSParams();
+    params.verbosity = Verbosity.QUIET;
+    params.numThreads = 1;
+    params.warmStartFile = solution.toString();
+    params.backgroundRestarts = false;
+    params.routeRecombination = false;
+    params.subproblemThreads = 0;
+    try (VRPInstanceSLS solver = new VRPInstanceSLS(problem, params)) {
+      routeList = solver.currentSolution();
+    }
+
+    List<Integer> used = new ArrayList<>();
+    for (int r = 0; r < routeList.routes.length; r++) {
+      if (routeList.routes[r].length > 2) {
+        used.add(r);
+      }
+    }
+    usedRoutes = used.stream().mapToInt(Integer::intValue).toArray();
+
+    Random random = new Random(29510);
+    shortTermMemory = new ArrayList<>();
+    for (int i = 0; i < tabuListSize; i++) {
+      shortTermMemory.add(new TabuItem(1 + random.nextInt(problem.numCustomers - 1), i));
+    }
+
+    routeOfCustomer = new int[problem.numCustomers];
+    positionOfCustomer = new int[problem.numCustomers];
+    routeList.locateCustomers(routeOfCustomer, positionOfCustomer);
+  }
+
+  /**
+   * Random valid moves of the given shape on the current solution.
+   */
+  public Interchange[] moves(Shape shape, Random random) {
+    Interchange[] moves = new Interchange[NUM_MOVES];
+    for (int i = 0; i < NUM_MOVES; i++) {
+      moves[i] = move(shape, random);
+    }
+    return moves;
+  }
+
+  private Interchange move(Shape shape, Random random) {
+    int minLength = shape == Shape.TWO_TWO ? 4 : 3;
+    int routeIdx1;
+    int routeIdx2;
+    do {
+      routeIdx1 = usedRoutes[random.nextInt(usedRoutes.length)];
+      routeIdx2 = usedRoutes[random.nextInt(usedRoutes.length)];
+    } while (routeIdx1 == routeIdx2 || routeList.routes[routeIdx1].length < minLength
+        || routeList.routes[routeIdx2].length < minLength);
+    Route route1 = routeList.routes[routeIdx1];
+    Route route2 = routeList.routes[routeIdx2];
+
+    switch (shape) {
+      case ONE_ZERO:
+        return new Interchange(
+            routeIdx1, new Insertion[]{new Insertion(
+                between(random, 1, route1.length - 1), between(random, 1, route2.length))},
+            routeIdx2, new Insertion[]{});
+      case ONE_ONE:
+        return new Interchange(
+            routeIdx1, new Insertion[]{new Insertion(
+                between(random, 1, route1.length - 1), between(random, 1, route2.length - 1))},
+            routeIdx2, new Insertion[]{new Insertion(
+                between(random, 1, route2.length - 1), between(random, 1, route1.length - 1))});
+      case TWO_TWO:
+        Interchange interchange = new Interchange(
+            routeIdx1, new Insertion[]{new Insertion(0, 0), new Insertion(0, 0)},
+            routeIdx2, new Insertion[]{new Insertion(0, 0), new Insertion(0, 0)});
+        BestRandom2ICalculator.populateRandom2I(interchange, route1, route2, random);
+        return interchange;
+      case TWO_OPT_STAR:
+        return new Interchange(
+            routeIdx1, new Segment(between(random, 1, route1.length), route1.length - 2, false),
+            routeIdx2, new Segment(between(random, 1, route2.length), route2.length - 2, false));
+      case CROSS:
+        return new Interchange(routeIdx1, segment(route1, random), routeIdx2,
+            segment(route2, random));
+      default:
+        throw new IllegalArgumentException("Unknown shape " + shape);
+    }
+  }
+
+  /**
+   * Non-empty segment of at most three customers.
+   */
+  private static Segment segment(Route route, Random random) {
+    int size = between(random, 1, Math.min(3, route.length - 2) + 1);
+    int start = between(random, 1, route.length - size);
+    return new Segment(start, start + size - 1, random.nextBoolean());
+  }
+
+  private static int between(Random random, int origin, int bound) {
+    return origin + random.nextInt(bound - origin);
+  }
+}
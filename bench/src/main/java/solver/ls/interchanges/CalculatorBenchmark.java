@@ -0,0 +1,122 @@
+package solver.ls.interchanges;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import solver.ls.bench.SolutionState;
+import solver.ls.data.InterchangeResult;
+import solver.ls.data.Route;
+import solver.ls.data.RouteList;
+
+/**
+ * One call of every neighborhood calculator, as submitted by the search for a single route, and
+ * the tabu check done for every improving move. Every invocation takes the next route of the
+ * solution. Lives in this package to reach the tabu check.
+ *
+ * <p>The exhaustive Best2ICalculator is left out: the search samples (2,2)-interchanges with
+ * BestRandom2ICalculator instead, and a single exhaustive call takes minutes on larger routes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CalculatorBenchmark {
+
+  /**
+   * Iteration the calculators are called at, scales the customer use penalty.
+   */
+  private static final int CURRENT_ITERATION = 1000;
+
+  private RouteList routeList;
+  private double excessCapacityPenalty;
+  private double customerUsePenalty;
+  private int largeNeighborhoodSize;
+  private int crossExchangeMaxSegmentLength;
+  /**
+   * Calculator holding the tabu list, to call the tabu check on.
+   */
+  private InterchangeCalculator tabuChecker;
+  /**
+   * Random route and position pairs to check.
+   */
+  private int[] tabuRoutes;
+  private int[] tabuPositions;
+  private int next = 0;
+
+  @Setup(Level.Trial)
+  public void setup(SolutionState state) {
+    routeList = state.routeList;
+    excessCapacityPenalty = state.params.excessCapacityBasePenalty;
+    customerUsePenalty = state.params.customerUseBasePenalty;
+    largeNeighborhoodSize = state.params.largeNeighborhoodBaseSize;
+    crossExchangeMaxSegmentLength = state.params.crossExchangeMaxSegmentLength;
+    tabuChecker = new Best0ICalculator(routeList, routeList, excessCapacityPenalty,
+        customerUsePenalty, CURRENT_ITERATION, state.shortTermMemory, false, 0);
+
+    Random random = new Random(29510);
+    tabuRoutes = new int[SolutionState.NUM_MOVES];
+    tabuPositions = new int[SolutionState.NUM_MOVES];
+    for (int i = 0; i < SolutionState.NUM_MOVES; i++) {
+      tabuRoutes[i] = state.usedRoutes[random.nextInt(state.usedRoutes.length)];
+      Route route = routeList.routes[tabuRoutes[i]];
+      tabuPositions[i] = 1 + random.nextInt(route.length - 2);
+    }
+  }
+
+  private int nextRoute() {
+    next = (next + 1) % routeList.routes.length;
+    return next;
+  }
+
+  @Benchmark
+  public InterchangeResult best0I(SolutionState state) {
+    return new Best0ICalculator(routeList, routeList, excessCapacityPenalty, customerUsePenalty,
+        CURRENT_ITERATION, state.shortTermMemory, false, nextRoute()).call();
+  }
+
+  @Benchmark
+  public InterchangeResult best1I(SolutionState state) {
+    return new Best1ICalculator(routeList, routeList, excessCapacityPenalty, customerUsePenalty,
+        CURRENT_ITERATION, state.shortTermMemory, false, nextRoute()).call();
+  }
+
+  @Benchmark
+  public InterchangeResult bestRandom2I(SolutionState state) {
+    return new BestRandom2ICalculator(routeList, routeList, excessCapacityPenalty,
+        customerUsePenalty, CURRENT_ITERATION, state.shortTermMemory, false, nextRoute(),
+        largeNeighborhoodSize).call();
+  }
+
+  @Benchmark
+  public InterchangeResult best2OptStar(SolutionState state) {
+    return new Best2OptStarCalculator(routeList, routeList, excessCapacityPenalty,
+        customerUsePenalty, CURRENT_ITERATION, state.shortTermMemory, false, nextRoute()).call();
+  }
+
+  @Benchmark
+  public InterchangeResult bestCrossExchange(SolutionState state) {
+    return new BestCrossExchangeCalculator(routeList, routeList, excessCapacityPenalty,
+        customerUsePenalty, CURRENT_ITERATION, state.shortTermMemory, false, nextRoute(),
+        crossExchangeMaxSegmentLength, state.problem.distances, state.problem.neighborLists,
+        state.routeOfCustomer, state.positionOfCustomer).call();
+  }
+
+  @Benchmark
+  @OutputTimeUnit(TimeUnit.NANOSECONDS)
+  public boolean isCustomerTabu() {
+    next = (next + 1) & (SolutionState.NUM_MOVES - 1);
+    return tabuChecker.isCustomerTabu(tabuRoutes[next], tabuPositions[next]);
+  }
+}
@@ -5,10 +5,23 @@
 ########################################
 
 # Update this file with instructions on how to compile your code
-javac -classpath /local/projects/cplex/CPLEX_Studio221/cplex/lib/cplex.jar \
+# The local search needs no external libraries.
+javac \
     ./src/solver/ls/*.java \
+    ./src/solver/ls/backend/*.java \
     ./src/solver/ls/data/*.java \
     ./src/solver/ls/incremental/*.java \
     ./src/solver/ls/instances/*.java \
     ./src/solver/ls/interchanges/*.java \
-    ./src/solver/ls/utils/*.java
+    ./src/solver/ls/listeners/*.java \
+    ./src/solver/ls/operators/*.java \
+    ./src/solver/ls/packing/*.java \
+    ./src/solver/ls/utils/*.java || exit 1
+
+# The CPLEX backend is optional, the solver falls back to pure Java without it.
+CPLEX_JAR=/local/projects/cplex/CPLEX_Studio221/cplex/lib/cplex.jar
+if [ -f $CPLEX_JAR ]; then
+  javac -classpath $CPLEX_JAR:src ./cplex/src/solver/ls/cplex/*.java
+else
+  echo "CPLEX not found, compiling without the CPLEX backend."
+fi
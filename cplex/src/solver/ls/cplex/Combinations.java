@@ -0,0 +1,65 @@
+package solver.ls.cplex;
+
+/**
+ * Streams the k-subsets of a set of items in lexicographic order. Only the current subset is
+ * kept, so memory stays constant however many subsets there are.
+ */
+class Combinations {
+
+  private final int[] items;
+  /**
+   * Indices of the items of the current subset, ascending.
+   */
+  private final int[] indices;
+  private boolean started = false;
+
+  /**
+   * @param items items to choose from.
+   * @param k     size of the subsets.
+   */
+  Combinations(int[] items, int k) {
+    this.items = items;
+    this.indices = new int[k];
+  }
+
+  /**
+   * Advances to the next subset.
+   *
+   * @return false if all subsets have been visited.
+   */
+  boolean next() {
+    int k = indices.length;
+    int n = items.length;
+    if (!started) {
+      started = true;
+      for (int i = 0; i < k; i++) {
+        indices[i] = i;
+      }
+      return k <= n;
+    }
+    // Increment the last index that is not at its maximum and reset the ones after it.
+    int i = k - 1;
+    while (i >= 0 && indices[i] == n - k + i) {
+      i--;
+    }
+    if (i < 0) {
+      return false;
+    }
+    indices[i]++;
+    for (int j = i + 1; j < k; j++) {
+      indices[j] = indices[j - 1] + 1;
+    }
+    return true;
+  }
+
+  /**
+   * Copy of the items of the current subset.
+   */
+  int[] subset() {
+    int[] subset = new int[indices.length];
+    for (int i = 0; i < indices.length; i++) {
+      subset[i] = items[indices[i]];
+    }
+    return subset;
+  }
+}
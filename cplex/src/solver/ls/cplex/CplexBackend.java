@@ -0,0 +1,150 @@
+package solver.ls.cplex;
+
+import ilog.concert.IloException;
+import ilog.concert.IloLinearNumExpr;
+import ilog.concert.IloNumVar;
+import ilog.cplex.IloCplex;
+import ilog.cplex.IloCplex.Param;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import solver.ls.backend.ExactSolution;
+import solver.ls.backend.MipBackend;
+import solver.ls.instances.VRPProblem;
+import solver.ls.operators.RoutePool.PooledRoute;
+
+/**
+ * MIP backend on CPLEX. The native library is loaded when the first model is built, so an
+ * unused backend costs nothing.
+ */
+public class CplexBackend implements MipBackend {
+
+  @Override
+  public String name() {
+    return "CPLEX";
+  }
+
+  @Override
+  public int[] packBins(int[] sizes, int numBins, int capacity, Random random) {
+    try (IloCplex bppModel = new IloCplex()) {
+      bppModel.setOut(null);
+      bppModel.setWarning(null);
+
+      // Bound taken from the official CPLEX docs.
+      bppModel.setParam(Param.RandomSeed, random.nextInt(2100000000));
+
+      IloNumVar[] useBins = bppModel.boolVarArray(numBins);
+      IloNumVar[][] itemBinAssignment = new IloNumVar[sizes.length][numBins];
+
+      for (int i = 0; i < sizes.length; i++) {
+        for (int j = 0; j < numBins; j++) {
+          itemBinAssignment[i][j] = bppModel.boolVar();
+        }
+      }
+
+      // Enforce each item being assigned to only one bin.
+      for (int i = 0; i < sizes.length; i++) {
+        IloLinearNumExpr totalAssignments = bppModel.linearNumExpr();
+        for (int j = 0; j < numBins; j++) {
+          totalAssignments.addTerm(1, itemBinAssignment[i][j]);
+        }
+        bppModel.addEq(totalAssignments, 1);
+      }
+
+      // Enforce capacity constraints.
+      for (int i = 0; i < numBins; i++) {
+        IloLinearNumExpr totalLoad = bppModel.linearNumExpr();
+        for (int j = 0; j < sizes.length; j++) {
+          totalLoad.addTerm(itemBinAssignment[j][i], sizes[j]);
+        }
+        IloLinearNumExpr maxLoad = bppModel.linearNumExpr();
+        maxLoad.addTerm(capacity, useBins[i]);
+        bppModel.addLe(totalLoad, maxLoad);
+      }
+
+      if (!bppModel.solve()) {
+        throw new IllegalArgumentException("Infeasible BPP model.");
+      }
+      int[] bins = new int[sizes.length];
+      for (int i = 0; i < sizes.length; i++) {
+        for (int j = 0; j < numBins; j++) {
+          if (bppModel.getValue(itemBinAssignment[i][j]) > 0.5) {
+            bins[i] = j;
+          }
+        }
+      }
+      return bins;
+    } catch (IloException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  @Override
+  public int[] partitionRoutes(List<PooledRoute> routes, int[] customers, int maxRoutes,
+      double upperBound, double timeLimit) {
+    try (IloCplex cplex = new IloCplex()) {
+      cplex.setOut(null);
+      cplex.setWarning(null);
+      cplex.setParam(Param.Threads, 1);
+      cplex.setParam(Param.TimeLimit, timeLimit);
+      // Only strictly shorter solutions are of interest.
+      cplex.setParam(Param.MIP.Tolerances.UpperCutoff, upperBound - 1e-6);
+
+      int maxCustomer = 0;
+      for (int customer : customers) {
+        maxCustomer = Math.max(maxCustomer, customer);
+      }
+      IloNumVar[] useRoute = cplex.boolVarArray(routes.size());
+      IloLinearNumExpr totalCost = cplex.linearNumExpr();
+      IloLinearNumExpr totalRoutes = cplex.linearNumExpr();
+      IloLinearNumExpr[] visits = new IloLinearNumExpr[maxCustomer + 1];
+      for (int customer : customers) {
+        visits[customer] = cplex.linearNumExpr();
+      }
+      for (int r = 0; r < routes.size(); r++) {
+        PooledRoute route = routes.get(r);
+        totalCost.addTerm(route.cost, useRoute[r]);
+        totalRoutes.addTerm(1, useRoute[r]);
+        for (int i = 1; i < route.customers.length - 1; i++) {
+          visits[route.customers[i]].addTerm(1, useRoute[r]);
+        }
+      }
+      cplex.addMinimize(totalCost);
+      // Every customer is served by exactly one route.
+      for (int customer : customers) {
+        cplex.addEq(visits[customer], 1);
+      }
+      cplex.addLe(totalRoutes, maxRoutes);
+
+      if (!cplex.solve()) {
+        return null;
+      }
+      double[] values = cplex.getValues(useRoute);
+      List<Integer> chosen = new ArrayList<>();
+      for (int r = 0; r < routes.size(); r++) {
+        if (values[r] > 0.5) {
+          chosen.add(r);
+        }
+      }
+      return chosen.stream().mapToInt(Integer::intValue).toArray();
+    } catch (IloException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  @Override
+  public ExactSolution solve(VRPProblem problem, List<List<Integer>> start, double timeLimit,
+      int threads, boolean quiet) {
+    VRPInstanceIP ip = new VRPInstanceIP(problem);
+    ip.quiet = quiet;
+    ip.threads = threads;
+    ip.mipStart = start;
+    ip.solveBranchAndCut(timeLimit);
+    return new ExactSolution(ip.routes, ip.objective, ip.optimal);
+  }
+
+  @Override
+  public double lowerBound(VRPProblem problem, double timeLimit) {
+    return new VRPInstanceIP(problem).lowerBound(timeLimit);
+  }
+}
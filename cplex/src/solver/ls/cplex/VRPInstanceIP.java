@@ -0,0 +1,539 @@
+package solver.ls.cplex;
+
+import ilog.concert.IloException;
+import ilog.concert.IloLinearNumExpr;
+import ilog.concert.IloNumVar;
+import ilog.concert.IloNumVarType;
+import ilog.cplex.IloCplex;
+import ilog.cplex.IloCplex.Param;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.IntStream;
+import solver.ls.instances.CapacityCutSeparator;
+import solver.ls.instances.VRPInstance;
+import solver.ls.instances.VRPProblem;
+import solver.ls.packing.BinPacking;
+
+public class VRPInstanceIP extends VRPInstance {
+
+  // Smallest violation of a separated cut: integer solutions must be cut off exactly, while
+  // barely violated fractional cuts only slow the LP down.
+  private static final double LAZY_CUT_MIN_VIOLATION = 1e-6;
+  private static final double USER_CUT_MIN_VIOLATION = 0.1;
+  // Number of subsets whose vehicle counts are computed together.
+  private static final int SUBSET_BATCH_SIZE = 4096;
+
+  public List<List<Integer>> routes;       // routes for each of the trucks
+  public double objective;                 // normalized tour length of the routes
+  public boolean optimal;                  // whether the routes are proven optimal
+  public boolean quiet = false;            // suppress the solver log and the solution printout
+  public int threads = 0;                  // number of CPLEX threads, 0 for automatic
+  public List<List<Integer>> mipStart;     // routes to start the MIP from and to beat, or null
+
+  // Exact vehicle counts of customer subsets, shared by all capacity constraints.
+  private final BinPacking binPacking;
+
+  public VRPInstanceIP(String fileName) {
+    super(fileName);
+    binPacking = new BinPacking(vehicleCapacity);
+  }
+
+  // Build the model on an already loaded problem. The model indexes customers 1..n-1, so
+  // subproblems of a larger problem are not supported.
+  public VRPInstanceIP(VRPProblem problem) {
+    super(problem);
+    if (problem.isSubproblem()) {
+      throw new IllegalArgumentException("The IP model needs the full problem.");
+    }
+    binPacking = new BinPacking(vehicleCapacity);
+  }
+
+  // Solve the model.
+  public void solve(boolean useBppApproximation, boolean relaxCapacityConstraints,
+      boolean relaxToContinuous, int minK, int maxK) {
+    try (IloCplex cplex = new IloCplex()) {
+      configure(cplex);
+      IloNumVar[][] nTraversals = buildModel(cplex, useBppApproximation,
+          relaxCapacityConstraints, relaxToContinuous, minK, maxK);
+      if (!relaxToContinuous) {
+        addMipStart(cplex, nTraversals);
+      }
+
+      // Solution.
+      if (cplex.solve()) {
+        readSolution(cplex, nTraversals);
+      } else {
+        throw new IllegalArgumentException("Infeasible VRP model.");
+      }
+    } catch (IloException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  // Solve the model by branch-and-cut. The model starts without capacity constraints, and
+  // violated rounded capacity constraints are added by callbacks: as lazy constraints for integer
+  // solutions, which is required for correctness, and as user cuts for fractional ones.
+  public void solveBranchAndCut(double timeLimit) {
+    try (IloCplex cplex = new IloCplex()) {
+      configure(cplex);
+      cplex.setParam(Param.TimeLimit, timeLimit);
+      IloNumVar[][] nTraversals = buildModel(cplex, true, true, false, 0, 0);
+      CapacityCutSeparator separator = new CapacityCutSeparator(demandOfCustomer,
+          vehicleCapacity);
+      IloNumVar[] edges = flatten(nTraversals);
+      cplex.use(new LazyCapacityCuts(cplex, nTraversals, edges, separator));
+      cplex.use(new UserCapacityCuts(cplex, nTraversals, edges, separator));
+      addMipStart(cplex, nTraversals);
+
+      // Solution.
+      if (cplex.solve()) {
+        readSolution(cplex, nTraversals);
+      } else {
+        throw new IllegalArgumentException("Infeasible VRP model.");
+      }
+    } catch (IloException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  // Print the solution and turn it into routes.
+  private void readSolution(IloCplex cplex, IloNumVar[][] nTraversals) throws IloException {
+    if (!quiet) {
+      System.out.println("Number of vehicles: " + numVehicles);
+      System.out.println("Number of customers: " + numCustomers);
+      System.out.println("Objective value: " + cplex.getObjValue());
+      System.out.println("Solution adjacency matrix: ");
+    }
+    int[][] solvedAdjMat = new int[numCustomers][numCustomers];
+
+    double totalSum = 0;
+    for (int i = 0; i < numCustomers; i++) {
+      for (int j = 0; j < numCustomers; j++) {
+        if (i < j) {
+          int indicator = (int) Math.round(cplex.getValue(nTraversals[i][j]));
+          solvedAdjMat[i][j] = indicator;
+          totalSum += indicator * distances[i][j];
+        } else if (i > j) {
+          int indicator = (int) Math.round(cplex.getValue(nTraversals[j][i]));
+          solvedAdjMat[i][j] = indicator;
+          totalSum += indicator * distances[j][i];
+        }
+        if (!quiet) {
+          System.out.print(solvedAdjMat[i][j] + ", ");
+        }
+      }
+      if (!quiet) {
+        System.out.println();
+      }
+    }
+
+    if (!quiet) {
+      System.out.println("Objective check: " + totalSum / 2);
+    }
+
+    // Turn the adjacency matrix into routes.
+    routes = getWalks(solvedAdjMat);
+    objective = totalSum / 2;
+    optimal = cplex.getStatus() == IloCplex.Status.Optimal;
+  }
+
+  // Start from the given routes, if any, and only look for solutions at least as short.
+  private void addMipStart(IloCplex cplex, IloNumVar[][] nTraversals) throws IloException {
+    if (mipStart == null) {
+      return;
+    }
+    double[][] x = new double[numCustomers][numCustomers];
+    double startLength = 0;
+    for (List<Integer> route : mipStart) {
+      for (int k = 0; k < route.size() - 1; k++) {
+        int i = Math.min(route.get(k), route.get(k + 1));
+        int j = Math.max(route.get(k), route.get(k + 1));
+        if (i != j) {
+          x[i][j]++;
+          startLength += distances[i][j];
+        }
+      }
+    }
+    double[] values = new double[numCustomers * (numCustomers - 1) / 2];
+    int k = 0;
+    for (int i = 0; i < numCustomers; i++) {
+      for (int j = i + 1; j < numCustomers; j++) {
+        values[k++] = x[i][j];
+      }
+    }
+    cplex.addMIPStart(flatten(nTraversals), values, IloCplex.MIPStartEffort.CheckFeas);
+    // Nodes that cannot beat the start are pruned; the slack keeps the start itself feasible.
+    cplex.setParam(Param.MIP.Tolerances.UpperCutoff, startLength + 1e-6);
+  }
+
+  // Apply the output and thread settings.
+  private void configure(IloCplex cplex) throws IloException {
+    if (quiet) {
+      cplex.setOut(null);
+      cplex.setWarning(null);
+    }
+    if (threads > 0) {
+      cplex.setParam(Param.Threads, threads);
+    }
+  }
+
+  // Add the variables, objective and constraints of the model.
+  private IloNumVar[][] buildModel(IloCplex cplex, boolean useBppApproximation,
+      boolean relaxCapacityConstraints, boolean relaxToContinuous, int minK, int maxK)
+      throws IloException {
+    // 0. Setup of decision variables.
+    // We are indexing until numCustomers + 1 since we have to account for the depot.
+    // Decision variables represent the number of times an edge was traversed.
+    // NB! this is a triangular matrix (j > i), since the distances are symmetrical.
+    IloNumVar[][] nTraversals = new IloNumVar[numCustomers][numCustomers];
+    for (int i = 0; i < numCustomers; i++) {
+      for (int j = i + 1; j < numCustomers; j++) {
+        if (i == 0) {
+          // Edges adjacent to the depot could be traversed no more than twice.
+          nTraversals[i][j] = cplex.numVar(0, 2,
+              relaxToContinuous ? IloNumVarType.Float : IloNumVarType.Int);
+        } else {
+          // Edges not adjacent to the depot could be traversed no more than once.
+          nTraversals[i][j] = cplex.numVar(0, 1,
+              relaxToContinuous ? IloNumVarType.Float : IloNumVarType.Int);
+        }
+      }
+    }
+
+    // 1. Minimize distance
+    IloLinearNumExpr totalCost = cplex.linearNumExpr();
+    for (int i = 0; i < numCustomers; i++) {
+      for (int j = i + 1; j < numCustomers; j++) {
+        totalCost.addTerm(distances[i][j], nTraversals[i][j]);
+      }
+    }
+    cplex.addMinimize(totalCost);
+
+    // 2. Each customer is visited exactly once
+    for (int i = 1; i < numCustomers; i++) {
+      IloLinearNumExpr visitOnce = cplex.linearNumExpr();
+      // Add all non-self edges to the calculation (including depot)
+      for (int j = 0; j < numCustomers; j++) {
+        if (i < j) {
+          // travelling = a vehicle goes on that path
+          visitOnce.addTerm(1, nTraversals[i][j]);
+        } else if (i > j) {
+          visitOnce.addTerm(1, nTraversals[j][i]);
+        }
+      }
+      cplex.addEq(visitOnce, 2);
+    }
+
+    // 3. There are no more than 2 * `numVehicles` edges adjacent to the depot
+    IloLinearNumExpr returnToDepot = cplex.linearNumExpr();
+    // Sum of all edges adjacent to the depot
+    for (int j = 1; j < numCustomers; j++) {
+      returnToDepot.addTerm(1, nTraversals[0][j]);
+    }
+    // adding the constraint
+    cplex.addLe(returnToDepot, 2 * numVehicles);
+
+    // 4. Capacity constraints (could be strengthened via solving the associated BPP).
+    if (!relaxCapacityConstraints) {
+      // Create an array of all customers.
+      int[] customers = new int[numCustomers - 1];
+      for (int i = 1; i < numCustomers; i++) {
+        customers[i - 1] = i;
+      }
+      // Bitset of the current subset, for constant-time membership tests.
+      long[] inSubset = new long[(numCustomers + 63) / 64];
+      int[][] batch = new int[SUBSET_BATCH_SIZE][];
+      int[] minVehiclesNeeded = new int[SUBSET_BATCH_SIZE];
+
+      // Check all subsets of size minK to maxK
+      for (int k = minK; k < maxK + 1; k++) {
+        // Stream the subsets of customers of size k, one batch at a time.
+        Combinations subsets = new Combinations(customers, k);
+        boolean more = true;
+        while (more) {
+          int batchSize = 0;
+          while (batchSize < SUBSET_BATCH_SIZE && (more = subsets.next())) {
+            batch[batchSize++] = subsets.subset();
+          }
+
+          // Calculate the lower bounds on the number of vehicles needed in parallel.
+          IntStream.range(0, batchSize).parallel().forEach(b ->
+              minVehiclesNeeded[b] = minVehicles(batch[b], useBppApproximation));
+
+          // Add the RC constraints, the model is not thread-safe.
+          for (int b = 0; b < batchSize; b++) {
+            int[] subset = batch[b];
+            for (int i : subset) {
+              inSubset[i >>> 6] |= 1L << i;
+            }
+            IloLinearNumExpr capacityExpr = cplex.linearNumExpr();
+            for (int i : subset) { // For each customer selected in the subset.
+              for (int j : customers) { // For each customer *not* in the subset.
+                if ((inSubset[j >>> 6] & (1L << j)) == 0) {
+                  if (i < j) {
+                    capacityExpr.addTerm(1, nTraversals[i][j]); // Add this edge to the edge sum.
+                  } else {
+                    capacityExpr.addTerm(1, nTraversals[j][i]); // Add this edge to the edge sum.
+                  }
+                }
+              }
+              capacityExpr.addTerm(1, nTraversals[0][i]); // Add the depot edge to the edge sum.
+            }
+            cplex.addGe(capacityExpr, 2 * minVehiclesNeeded[b]);
+            for (int i : subset) {
+              inSubset[i >>> 6] &= ~(1L << i);
+            }
+          }
+        }
+      }
+    }
+
+    return nTraversals;
+  }
+
+  // Lower bound on the tour length (in the original units) from the LP relaxation, tightened by
+  // rounds of separated rounded capacity constraints until none is violated or the time is up.
+  // Returns 0 if not even the first LP is solved in time.
+  public double lowerBound(double timeLimit) {
+    long deadline = System.nanoTime() + (long) (Math.max(timeLimit, 0) * 1e9);
+    try (IloCplex cplex = new IloCplex()) {
+      cplex.setOut(null);
+      cplex.setWarning(null);
+      IloNumVar[][] nTraversals = buildModel(cplex, true, true, true, 0, 0);
+      CapacityCutSeparator separator = new CapacityCutSeparator(demandOfCustomer,
+          vehicleCapacity);
+      IloNumVar[] edges = flatten(nTraversals);
+
+      // All customers together need at least ceil(total demand / capacity) vehicles.
+      int[] allCustomers = new int[numCustomers - 1];
+      for (int j = 1; j < numCustomers; j++) {
+        allCustomers[j - 1] = j;
+      }
+      cplex.addGe(capacityCut(cplex, nTraversals, allCustomers),
+          2 * separator.minVehicles(allCustomers));
+
+      double bound = 0;
+      while (true) {
+        cplex.setParam(Param.TimeLimit, Math.max(deadline - System.nanoTime(), 0) / 1e9);
+        if (!cplex.solve() || cplex.getStatus() != IloCplex.Status.Optimal) {
+          // The last optimal LP, with fewer cuts, is still a valid bound.
+          break;
+        }
+        // The model uses normalized distances.
+        bound = cplex.getObjValue() / normCoefficient;
+        List<int[]> cuts = separator.separate(edgeValues(cplex.getValues(edges)),
+            USER_CUT_MIN_VIOLATION);
+        if (cuts.isEmpty() || System.nanoTime() >= deadline) {
+          break;
+        }
+        for (int[] set : cuts) {
+          cplex.addGe(capacityCut(cplex, nTraversals, set), 2 * separator.minVehicles(set));
+        }
+      }
+      return bound;
+    } catch (IloException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  // Edge variables in one array (i < j, row by row), as callbacks read all values at once.
+  private IloNumVar[] flatten(IloNumVar[][] nTraversals) {
+    IloNumVar[] edges = new IloNumVar[numCustomers * (numCustomers - 1) / 2];
+    int k = 0;
+    for (int i = 0; i < numCustomers; i++) {
+      for (int j = i + 1; j < numCustomers; j++) {
+        edges[k++] = nTraversals[i][j];
+      }
+    }
+    return edges;
+  }
+
+  // Symmetric matrix of the edge values read in the order of flatten.
+  private double[][] edgeValues(double[] values) {
+    double[][] x = new double[numCustomers][numCustomers];
+    int k = 0;
+    for (int i = 0; i < numCustomers; i++) {
+      for (int j = i + 1; j < numCustomers; j++) {
+        x[i][j] = values[k];
+        x[j][i] = values[k];
+        k++;
+      }
+    }
+    return x;
+  }
+
+  // Sum of the edges leaving a customer set, including the edges to the depot.
+  private IloLinearNumExpr capacityCut(IloCplex cplex, IloNumVar[][] nTraversals, int[] set)
+      throws IloException {
+    boolean[] inSet = new boolean[numCustomers];
+    for (int customer : set) {
+      inSet[customer] = true;
+    }
+    IloLinearNumExpr capacityExpr = cplex.linearNumExpr();
+    for (int i : set) {
+      for (int j = 0; j < numCustomers; j++) {
+        if (!inSet[j]) {
+          capacityExpr.addTerm(1, i < j ? nTraversals[i][j] : nTraversals[j][i]);
+        }
+      }
+    }
+    return capacityExpr;
+  }
+
+  // Cuts off integer solutions with subtours or overloaded routes.
+  private class LazyCapacityCuts extends IloCplex.LazyConstraintCallback {
+
+    private final IloCplex cplex;
+    private final IloNumVar[][] nTraversals;
+    private final IloNumVar[] edges;
+    private final CapacityCutSeparator separator;
+
+    LazyCapacityCuts(IloCplex cplex, IloNumVar[][] nTraversals, IloNumVar[] edges,
+        CapacityCutSeparator separator) {
+      this.cplex = cplex;
+      this.nTraversals = nTraversals;
+      this.edges = edges;
+      this.separator = separator;
+    }
+
+    @Override
+    protected void main() throws IloException {
+      for (int[] set : separator.separate(edgeValues(getValues(edges)),
+          LAZY_CUT_MIN_VIOLATION)) {
+        add(cplex.ge(capacityCut(cplex, nTraversals, set), 2 * separator.minVehicles(set)));
+      }
+    }
+  }
+
+  // Tightens the relaxation at fractional nodes.
+  private class UserCapacityCuts extends IloCplex.UserCutCallback {
+
+    private final IloCplex cplex;
+    private final IloNumVar[][] nTraversals;
+    private final IloNumVar[] edges;
+    private final CapacityCutSeparator separator;
+
+    UserCapacityCuts(IloCplex cplex, IloNumVar[][] nTraversals, IloNumVar[] edges,
+        CapacityCutSeparator separator) {
+      this.cplex = cplex;
+      this.nTraversals = nTraversals;
+      this.edges = edges;
+      this.separator = separator;
+    }
+
+    @Override
+    protected void main() throws IloException {
+      for (int[] set : separator.separate(edgeValues(getValues(edges)),
+          USER_CUT_MIN_VIOLATION)) {
+        add(cplex.ge(capacityCut(cplex, nTraversals, set), 2 * separator.minVehicles(set)));
+      }
+    }
+  }
+
+  // Determine how many vehicles are needed to serve a given set of customers, either exactly
+  // or with the simplified BPP (total demand over capacity).
+  private int minVehicles(int[] customers, boolean useBppApproximation) {
+    int[] demands = new int[customers.length];
+    long q = 0;
+    for (int i = 0; i < demands.length; i++) {
+      demands[i] = demandOfCustomer[customers[i]];
+      q += demands[i];
+    }
+    if (useBppApproximation) {
+      return (int) ((q + vehicleCapacity - 1) / vehicleCapacity);
+    }
+    try {
+      return binPacking.minBins(demands);
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException("Infeasible BPP model.", e);
+    }
+  }
+
+  // Helper to turn the adjacency matrix into a list of paths.
+  private List<List<Integer>> getWalks(int[][] adjMat) {
+    List<List<Integer>> allCircuits = new ArrayList<>();
+    boolean[] visited = new boolean[adjMat.length];
+    List<Integer> currentCircuit = new ArrayList<>();
+
+    // A depot edge traversed twice is a route with a single customer.
+    for (int j = 1; j < adjMat.length; j++) {
+      if (adjMat[0][j] == 2) {
+        allCircuits.add(new ArrayList<>(List.of(0, j)));
+      }
+    }
+
+    // recursively find all paths connected to the start node
+    dfs(adjMat, 0, 0, visited, currentCircuit, allCircuits, new HashSet<>());
+    for (List<Integer> l : allCircuits) {
+      l.add(0);
+    }
+    return allCircuits;
+  }
+
+  // Helper to calculate list of paths for adjacency matrix.
+  private void dfs(int[][] adjacencyMatrix, int startNode, int currentNode, boolean[] visited,
+      List<Integer> currentCircuit, List<List<Integer>> allCircuits, Set<Integer> seen) {
+    visited[currentNode] = true;
+    currentCircuit.add(currentNode);
+
+    for (int neighbor = 0; neighbor < adjacencyMatrix[currentNode].length; neighbor++) {
+      if (adjacencyMatrix[currentNode][neighbor] == 1 && !seen.contains(neighbor)) {
+        if (neighbor == startNode && currentCircuit.size() > 2) {
+          allCircuits.add(new ArrayList<>(currentCircuit));
+        } else if (!visited[neighbor]) {
+          seen.add(neighbor);
+          dfs(adjacencyMatrix, startNode, neighbor, visited, currentCircuit, allCircuits, seen);
+        }
+      }
+    }
+
+    visited[currentNode] = false;
+    currentCircuit.remove(currentCircuit.size() - 1);
+  }
+
+  // Serialize all routes into the required format.
+  public String serializeRoutes(List<List<Integer>> routes) {
+    // Add the vehicles that didn't go
+    int excessVehicles = numVehicles - routes.size();
+    for (int i = 0; i < excessVehicles; i++) {
+      ArrayList<Integer> excess = new ArrayList<>();
+      excess.add(0);
+      excess.add(0);
+      routes.add(excess);
+    }
+
+    System.out.println("Routes: " + routes.size());
+    for (List<Integer> walk : routes) {
+      for (int j : walk) {
+        System.out.print(j + " ");
+      }
+      System.out.println();
+    }
+
+    // convert to a string
+    List<Integer> flattenedList = new ArrayList<>();
+    flattenedList.add(1); // NOTE: 1 HERE IF PROVED OPTIMAL, ELSE 0
+    for (List<Integer> innerList : routes) {
+      flattenedList.addAll(innerList);
+    }
+    StringBuilder sb = new StringBuilder();
+    for (Integer number : flattenedList) {
+      sb.append(number).append(" ");
+    }
+
+    return sb.toString().trim();
+  }
+
+  // Get tour length from the routes.
+  public double getTourLength(List<List<Integer>> routes) {
+    double totalTourLength = 0;
+    for (List<Integer> route : routes) {
+      for (int j = 0; j < route.size() - 1; j++) {
+        totalTourLength += distances[route.get(j)][route.get(j + 1)];
+      }
+    }
+    return totalTourLength;
+  }
+}
\ No newline at end of file
@@ -0,0 +1,22 @@
+#!/bin/bash
+
+########################################
+############# CSCI 2951-O ##############
+########################################
+E_BADARGS=65
+if [ $# -lt 3 ]
+then
+	echo "Usage: `basename $0` <inputFolder/> <timeLimit> <logFile> [threadsPerInstance]"
+	echo "Description:"
+	echo -e "\t Solves all the files in the given inputFolder/ in a single JVM, several at a time."
+	echo -e "\t The total time is timeLimit times the number of files, split by instance size."
+	echo -e "\t Each result line is appended to the given logFile in the same format as runAll.sh."
+	echo -e "\t If the logFile already exists, the run is aborted."
+	exit $E_BADARGS
+fi
+
+# export the solver libraries into the path
+export LD_LIBRARY_PATH=$LD_LIBRARY_PATH:/local/projects/cplex/CPLEX_Studio221/cplex/bin/x86-64_linux
+
+# add the solver jar and the CPLEX backend to the classpath and run
+java -cp /local/projects/cplex/CPLEX_Studio221/cplex/lib/cplex.jar:src:cplex/src solver.ls.BatchMain "$@"
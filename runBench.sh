@@ -0,0 +1,7 @@
+#!/bin/bash
+
+# Builds the JMH microbenchmarks and runs them on the instances in input/ and the solutions in
+# solutions/. Arguments are passed on to JMH, e.g. ./runBench.sh MoveEvaluation -p shape=CROSS
+mvn -q -f bench/pom.xml package || exit 1
+
+java -Dvrp.root=. -jar bench/target/benchmarks.jar "$@"
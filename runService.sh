@@ -0,0 +1,13 @@
+#!/bin/bash
+
+########################################
+############# CSCI 2951-O ##############
+########################################
+# Usage: ./runService.sh [slots] [searchThreads]
+# Reads JSON-lines jobs from stdin and streams JSON-lines events to stdout (see ServiceMain).
+
+# export the solver libraries into the path
+export LD_LIBRARY_PATH=$LD_LIBRARY_PATH:/local/projects/cplex/CPLEX_Studio221/cplex/bin/x86-64_linux
+
+# add the solver jar and the CPLEX backend to the classpath and run
+java -cp /local/projects/cplex/CPLEX_Studio221/cplex/lib/cplex.jar:src:cplex/src solver.ls.ServiceMain "$@"
@@ -15,5 +15,5 @@ input=$1
 # export the solver libraries into the path
 export LD_LIBRARY_PATH=$LD_LIBRARY_PATH:/local/projects/cplex/CPLEX_Studio221/cplex/bin/x86-64_linux
 
-# add the solver jar to the classpath and run
-java -XX:StartFlightRecording=dumponexit=true -cp /local/projects/cplex/CPLEX_Studio221/cplex/lib/cplex.jar:src solver.ls.Main $input
+# add the solver jar and the CPLEX backend to the classpath and run
+java -XX:StartFlightRecording=dumponexit=true -cp /local/projects/cplex/CPLEX_Studio221/cplex/lib/cplex.jar:src:cplex/src solver.ls.Main $input
@@ -0,0 +1,147 @@
+package solver.ls;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import solver.ls.instances.SLSParams;
+import solver.ls.utils.ByteTokenizer;
+import solver.ls.utils.Timer;
+import solver.ls.utils.Verbosity;
+
+/**
+ * Solves every instance of a folder in a single JVM. Cores are split between concurrent solves,
+ * and the total time (the time limit times the number of instances, as with runAll.sh) is split
+ * between the instances proportionally to their number of customers, largest first.
+ */
+public class BatchMain {
+
+  public static void main(String[] args) throws IOException, InterruptedException {
+    if (args.length < 3) {
+      System.out.println(
+          "Usage: java BatchMain <inputFolder/> <timeLimit> <logFile> [threadsPerInstance]");
+      return;
+    }
+
+    File inputFolder = new File(args[0]);
+    double timeLimit = Double.parseDouble(args[1]);
+    Path logFile = Paths.get(args[2]);
+    int cores = Runtime.getRuntime().availableProcessors();
+    int threadsPerInstance = args.length > 3 ? Integer.parseInt(args[3]) : Math.min(4, cores);
+
+    // Terminate if the log file already exists.
+    if (Files.exists(logFile)) {
+      System.out.println("Logfile " + logFile + " already exists, terminating.");
+      System.exit(1);
+    }
+
+    File[] files = inputFolder.listFiles(
+        file -> file.isFile() && !file.isHidden() && file.getName().endsWith(".vrp"));
+    if (files == null || files.length == 0) {
+      System.out.println("No instances in " + inputFolder);
+      return;
+    }
+
+    // Weigh instances by their size, and schedule the largest ones first.
+    List<BatchJob> jobs = new ArrayList<>();
+    List<String> unreadable = new ArrayList<>();
+    for (File file : files) {
+      try {
+        jobs.add(new BatchJob(file.getPath(), readNumCustomers(file.toPath())));
+      } catch (IOException | RuntimeException e) {
+        // Like runAll.sh, record the failure and carry on with the other instances.
+        System.out.println("Error in " + file.getPath() + ": " + e);
+        unreadable.add(file.getPath());
+      }
+    }
+    jobs.sort(Comparator.comparingInt((BatchJob job) -> job.numCustomers).reversed());
+
+    int slots = Math.max(1, Math.min(jobs.size(), cores / threadsPerInstance));
+    double totalWeight = jobs.stream().mapToDouble(job -> job.numCustomers).sum();
+    double totalBudget = timeLimit * jobs.size();
+    double minimumBudget = 2 * new SLSParams().optimizationTimeout + 1;
+    for (BatchJob job : jobs) {
+      job.budget = Math.max(minimumBudget, totalBudget * job.numCustomers / totalWeight);
+    }
+    // Stop handing out time past the point runAll.sh would have needed with as many slots.
+    double deadline = totalBudget / slots;
+
+    System.out.println("Solving " + jobs.size() + " instances in " + slots + " slots of "
+        + threadsPerInstance + " threads.");
+
+    Timer watch = new Timer();
+    watch.start();
+    ExecutorService pool = Executors.newFixedThreadPool(slots);
+
+    try (BufferedWriter log = Files.newBufferedWriter(logFile, StandardOpenOption.CREATE_NEW)) {
+      for (String input : unreadable) {
+        log.write(Main.failedResult(Paths.get(input).getFileName().toString()));
+        log.newLine();
+      }
+      log.flush();
+      for (BatchJob job : jobs) {
+        pool.submit(() -> {
+          SLSParams params = new SLSParams();
+          params.instanceTimeout = Math.max(minimumBudget,
+              Math.min(job.budget, deadline - watch.getTime()));
+          params.numThreads = threadsPerInstance;
+          params.verbosity = Verbosity.QUIET;
+
+          System.out.println("Running " + job.input + " for " + String.format("%.1f",
+              params.instanceTimeout) + " s");
+          String result;
+          try {
+            result = Main.solve(job.input, params);
+          } catch (Exception e) {
+            System.out.println("Error in " + job.input + ": " + e);
+            result = Main.failedResult(Paths.get(job.input).getFileName().toString());
+          }
+
+          // Record the line as soon as the instance is done.
+          synchronized (log) {
+            try {
+              log.write(result);
+              log.newLine();
+              log.flush();
+            } catch (IOException e) {
+              throw new RuntimeException(e);
+            }
+          }
+        });
+      }
+      pool.shutdown();
+      pool.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+    }
+
+    watch.stop();
+    System.out.println("Done in " + String.format("%.2f", watch.getTime()) + " s.");
+  }
+
+  /**
+   * Reads only the header of an instance to get its size.
+   */
+  private static int readNumCustomers(Path path) throws IOException {
+    return ByteTokenizer.open(path).nextInt();
+  }
+
+  private static class BatchJob {
+
+    final String input;
+    final int numCustomers;
+    double budget;
+
+    BatchJob(String input, int numCustomers) {
+      this.input = input;
+      this.numCustomers = numCustomers;
+    }
+  }
+}
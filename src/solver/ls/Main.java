@@ -7,61 +7,212 @@ import java.io.FileWriter;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Scanner;
 import solver.ls.data.Route;
+import solver.ls.data.RouteList;
+import solver.ls.instances.BoundComputation;
+import solver.ls.instances.DecompositionSearch;
+import solver.ls.instances.ExactSolver;
 import solver.ls.instances.SLSParams;
+import solver.ls.instances.SearchHandle;
 import solver.ls.instances.VRPInstanceSLS;
+import solver.ls.instances.VRPProblem;
+import solver.ls.listeners.JsonLinesSink;
 import solver.ls.utils.Timer;
+import solver.ls.utils.Verbosity;
 
 public class Main {
 
   public static void main(String[] args) throws IOException {
     if (args.length == 0) {
-      System.out.println("Usage: java Main <file>");
+      System.out.println(
+          "Usage: java Main <file> [--warm-start] [--warm-start-restarts] [--no-cache] "
+              + "[--decompose | --no-decompose] [--exact] [--bound] [--gap-tolerance <gap>] "
+              + "[--subproblem-threads <n>] [--events <file>] [--events-stdout] "
+              + "[--quiet | --verbose]");
       return;
     }
 
     String input = args[0];
+    SLSParams params = new SLSParams();
+    SearchHandle handle = new SearchHandle();
+    List<JsonLinesSink> sinks = new ArrayList<>();
+
+    for (int i = 1; i < args.length; i++) {
+      switch (args[i]) {
+        case "--warm-start":
+          // Continue from the best known solution in the archive.
+          String solutionFileName = solutionFileName(input);
+          if (new File(solutionFileName).exists()) {
+            params.warmStartFile = solutionFileName;
+          }
+          break;
+        case "--warm-start-restarts":
+          params.warmStartRestarts = true;
+          break;
+        case "--events":
+          // Stream improvements to a JSON-lines file.
+          if (i + 1 >= args.length) {
+            System.out.println("Missing file for --events");
+            return;
+          }
+          sinks.add(JsonLinesSink.toFile(Paths.get(args[++i])));
+          break;
+        case "--events-stdout":
+          sinks.add(JsonLinesSink.toStdout());
+          break;
+        case "--decompose":
+          // Decompose regardless of the instance size.
+          params.decompositionThreshold = 0;
+          break;
+        case "--no-decompose":
+          params.decompositionThreshold = Integer.MAX_VALUE;
+          break;
+        case "--exact":
+          // Prove optimality with the MIP, started from a short local search.
+          params.exactSolve = true;
+          break;
+        case "--bound":
+          // Stop once the incumbent is provably within the gap tolerance.
+          params.computeLowerBound = true;
+          break;
+        case "--gap-tolerance":
+          if (i + 1 >= args.length) {
+            System.out.println("Missing value for --gap-tolerance");
+            return;
+          }
+          params.gapTolerance = Double.parseDouble(args[++i]);
+          break;
+        case "--subproblem-threads":
+          if (i + 1 >= args.length) {
+            System.out.println("Missing value for --subproblem-threads");
+            return;
+          }
+          params.subproblemThreads = Integer.parseInt(args[++i]);
+          break;
+        case "--no-cache":
+          params.useInstanceCache = false;
+          break;
+        case "-q":
+        case "--quiet":
+          params.verbosity = Verbosity.QUIET;
+          break;
+        case "-v":
+        case "--verbose":
+          params.verbosity = Verbosity.VERBOSE;
+          break;
+        default:
+          System.out.println("Unknown option: " + args[i]);
+          return;
+      }
+    }
+
+    for (JsonLinesSink sink : sinks) {
+      handle.addListener(sink);
+    }
+
+    String result = solve(input, params, handle);
+    for (JsonLinesSink sink : sinks) {
+      sink.close();
+    }
+
+    // Output the instance string.
+    System.out.println(result);
+  }
+
+  /**
+   * Archive file with the best known solution for the given instance.
+   */
+  public static String solutionFileName(String input) {
+    return "./solutions/" + Paths.get(input).getFileName() + ".sol";
+  }
+
+  /**
+   * Solves a single instance, updates the solution archive and returns the result line.
+   *
+   * @param input  instance file.
+   * @param params solver parameters, including the time limit.
+   * @return JSON result line in the results.log format.
+   */
+  public static String solve(String input, SLSParams params) throws IOException {
+    return solve(input, params, new SearchHandle());
+  }
+
+  /**
+   * Solves a single instance while reporting improvements through the given handle.
+   */
+  public static String solve(String input, SLSParams params, SearchHandle handle)
+      throws IOException {
     Path path = Paths.get(input);
     String filename = path.getFileName().toString();
-    System.out.println("Instance: " + input);
+    String fullFileName = solutionFileName(input);
 
-    Timer watch = new Timer();
-    SLSParams params = new SLSParams();
+    if (params.verbosity.atLeast(Verbosity.NORMAL)) {
+      System.out.println("Instance: " + input);
+    }
 
+    Timer watch = new Timer();
     watch.start();
-    VRPInstanceSLS incompleteInstance = new VRPInstanceSLS(input, watch, params);
-    watch.stop();
+    VRPProblem problem = VRPProblem.load(input, params.verbosity, params.useInstanceCache);
+    RouteList bestSolution;
+    int excessCapacity;
+    String result;
+    // Leave some slack for reporting before the time limit.
+    double budget = params.instanceTimeout - 2 * params.optimizationTimeout - watch.getTime();
 
-    double excessCapacity = incompleteInstance.calculateExcessCapacity(
-        incompleteInstance.bestIncumbent);
-
-    assert excessCapacity == 0;
+    if (problem.numCustomers - 1 > params.decompositionThreshold) {
+      try (DecompositionSearch search = new DecompositionSearch(problem, params, null, handle)) {
+        bestSolution = search.solve(budget);
+        excessCapacity = search.master().calculateExcessCapacity(bestSolution);
+        watch.stop();
+        if (params.verbosity.atLeast(Verbosity.NORMAL)) {
+          System.out.println("Decomposition rounds: " + search.currentRound);
+        }
+        printStats(params, problem, watch, search.master(), bestSolution,
+            search.currentIteration, handle);
+        result = formatResult(filename, watch.getTime(), search.master(), bestSolution);
+      }
+    } else {
+      // The LP over all edges is too large for decomposed instances.
+      if (params.computeLowerBound) {
+        BoundComputation.start(problem, budget, handle, params.verbosity);
+      }
+      try (VRPInstanceSLS incompleteInstance = new VRPInstanceSLS(problem, params, null,
+          handle)) {
+        bestSolution = params.exactSolve
+            ? ExactSolver.solve(incompleteInstance, params, budget, handle)
+            : incompleteInstance.solve(budget);
+        excessCapacity = incompleteInstance.calculateExcessCapacity(bestSolution);
+        watch.stop();
+        printStats(params, problem, watch, incompleteInstance, bestSolution,
+            incompleteInstance.currentIteration, handle);
+        result = formatResult(filename, watch.getTime(), incompleteInstance, bestSolution);
+      }
+    }
 
-    System.out.println(
-        "Amount over capacity (expect it to be 0): " + excessCapacity);
-    System.out.println("Average time per iteration (µs): " + String.format("%.2f",
-        Math.pow(10, 6) * watch.getTime() / incompleteInstance.currentIteration));
+    // Never archive an overloaded solution, later runs would compare against and start from it.
+    if (excessCapacity > 0) {
+      return result;
+    }
 
     // Generate the solution files. Only replace the current one if the new solution is better.
-    Scanner read;
-    String fullFileName = "./solutions/" + filename + ".sol";
     double currentBest;
 
-    try {
-      read = new Scanner(new File(fullFileName));
+    try (Scanner read = new Scanner(new File(fullFileName))) {
       currentBest = read.nextDouble();
     } catch (FileNotFoundException e) {
       currentBest = Double.POSITIVE_INFINITY;
     }
 
-    if (incompleteInstance.bestIncumbent.length < currentBest) {
-      String instanceHeader =
-          String.format("%.2f", incompleteInstance.bestIncumbent.length) + " 0\n";
+    if (bestSolution.length < currentBest) {
+      String instanceHeader = String.format("%.2f", bestSolution.length)
+          + (handle.provesOptimal(bestSolution.length) ? " 1\n" : " 0\n");
       BufferedWriter writer = new BufferedWriter(new FileWriter(fullFileName));
       writer.write(instanceHeader);
       // Serialize routes one-by-one.
-      for (Route route : incompleteInstance.bestIncumbent.routes) {
+      for (Route route : bestSolution.routes) {
         for (int i = 0; i < route.length; i++) {
           writer.write(route.customers[i] + " ");
         }
@@ -70,11 +221,52 @@ public class Main {
       writer.close();
     }
 
-    // Output the instance string.
-    System.out.println(
-        "{\"Instance\": \"" + filename + "\", \"Time\": " + String.format("%.2f", watch.getTime())
-            + ", \"Result\": " + String.format("%.2f", incompleteInstance.bestIncumbent.length)
-            + ", \"Solution\": \"" + incompleteInstance.serializeRoutes(
-            incompleteInstance.bestIncumbent) + "\"}");
+    return result;
+  }
+
+  private static void printStats(SLSParams params, VRPProblem problem, Timer watch,
+      VRPInstanceSLS instance, RouteList bestSolution, int iterations, SearchHandle handle) {
+    double excessCapacity = instance.calculateExcessCapacity(bestSolution);
+
+    if (params.verbosity.atLeast(Verbosity.NORMAL)) {
+      if (excessCapacity > 0) {
+        System.out.println("No feasible solution found.");
+      }
+      System.out.println(
+          "Amount over capacity (expect it to be 0): " + excessCapacity);
+      System.out.println("Instance load time (s): " + String.format("%.3f",
+          problem.loadTime));
+      System.out.println("Time to first iteration (s): " + String.format("%.3f",
+          problem.loadTime + instance.timeToFirstIteration));
+      System.out.println("Route optimization time (s): " + String.format("%.3f",
+          instance.optimizationTime));
+      System.out.println("Average time per iteration (µs): " + String.format("%.2f",
+          Math.pow(10, 6) * watch.getTime() / iterations));
+      if (handle.lowerBound() > 0 && excessCapacity == 0) {
+        System.out.println("Gap to lower bound (%): " + String.format("%.2f",
+            100 * handle.gap(bestSolution.length)));
+      }
+    }
+  }
+
+  /**
+   * Formats a solution of the given solver as a JSON result line, or as a failed run if the
+   * solution overloads a vehicle.
+   */
+  public static String formatResult(String instanceName, double time, VRPInstanceSLS instance,
+      RouteList solution) {
+    if (Double.isInfinite(solution.length) || instance.calculateExcessCapacity(solution) > 0) {
+      return failedResult(instanceName);
+    }
+    return "{\"Instance\": \"" + instanceName + "\", \"Time\": " + String.format("%.2f", time)
+        + ", \"Result\": " + String.format("%.2f", solution.length)
+        + ", \"Solution\": \"" + instance.serializeRoutes(solution) + "\"}";
+  }
+
+  /**
+   * Result line of an instance without a solution, in the format of runAll.sh.
+   */
+  public static String failedResult(String instanceName) {
+    return "{\"Instance\": \"" + instanceName + "\", \"Time\": \"--\", \"Result\": \"--\"}";
   }
 }
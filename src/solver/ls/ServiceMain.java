@@ -0,0 +1,232 @@
+package solver.ls;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import solver.ls.data.RouteList;
+import solver.ls.instances.SLSParams;
+import solver.ls.instances.SearchHandle;
+import solver.ls.instances.VRPInstanceSLS;
+import solver.ls.instances.VRPProblem;
+import solver.ls.listeners.IncumbentEvent;
+import solver.ls.listeners.IncumbentEvent.Kind;
+import solver.ls.utils.ByteTokenizer;
+import solver.ls.utils.Json;
+import solver.ls.utils.Timer;
+import solver.ls.utils.Verbosity;
+
+/**
+ * Long-running solver speaking JSON lines over stdin/stdout, so that many jobs share one warm JVM.
+ *
+ * <p>Requests, one per line:
+ * <pre>
+ * {"op": "solve", "id": "a", "file": "input/16_5_1.vrp", "timeLimit": 10}
+ * {"op": "solve", "id": "b", "instance": "16 5 55\n0 30 40\n...", "timeLimit": 10}
+ * {"op": "cancel", "id": "a"}
+ * {"op": "shutdown"}
+ * </pre>
+ * Responses are "queued", "incumbent" (streamed on every improvement), "done", "cancelled" and
+ * "error" events, each tagged with the job id. Everything else the solver prints goes to stderr.
+ */
+public class ServiceMain {
+
+  private final PrintStream protocol;
+  private final ExecutorService workers;
+  private final ExecutorService searchPool;
+  private final Map<String, ServiceJob> jobs = new ConcurrentHashMap<>();
+
+  /**
+   * @param protocol      stream to write the events to.
+   * @param slots         number of jobs to run at the same time.
+   * @param searchThreads number of threads to evaluate neighborhoods on, shared by all jobs.
+   */
+  public ServiceMain(PrintStream protocol, int slots, int searchThreads) {
+    this.protocol = protocol;
+    this.workers = Executors.newFixedThreadPool(slots);
+    this.searchPool = Executors.newFixedThreadPool(searchThreads);
+  }
+
+  public static void main(String[] args) throws IOException, InterruptedException {
+    int cores = Runtime.getRuntime().availableProcessors();
+    int slots = args.length > 0 ? Integer.parseInt(args[0]) : Math.max(1, cores / 4);
+    int searchThreads = args.length > 1 ? Integer.parseInt(args[1]) : cores;
+
+    // Keep stdout for the protocol only.
+    PrintStream protocol = System.out;
+    System.setOut(System.err);
+
+    ServiceMain service = new ServiceMain(protocol, slots, searchThreads);
+    BufferedReader in = new BufferedReader(
+        new InputStreamReader(System.in, StandardCharsets.UTF_8));
+    String line;
+    while ((line = in.readLine()) != null) {
+      if (!line.isBlank() && !service.handle(line)) {
+        break;
+      }
+    }
+    service.shutdown();
+  }
+
+  /**
+   * Handles a single request line.
+   *
+   * @return false once the service should stop accepting requests.
+   */
+  public boolean handle(String line) {
+    Map<String, Object> request;
+    try {
+      request = Json.parseObject(line);
+    } catch (IllegalArgumentException e) {
+      emit(null, "error", "\"message\": " + Json.quote(e.getMessage()));
+      return true;
+    }
+
+    String op = request.getOrDefault("op", "solve").toString();
+    Object id = request.get("id");
+    switch (op) {
+      case "solve":
+        if (id == null) {
+          emit(null, "error", "\"message\": \"Missing job id.\"");
+        } else {
+          submit(id.toString(), request);
+        }
+        return true;
+      case "cancel":
+        ServiceJob job = id == null ? null : jobs.get(id.toString());
+        if (job == null) {
+          emit(id == null ? null : id.toString(), "error", "\"message\": \"Unknown job.\"");
+        } else {
+          synchronized (job) {
+            job.handle.cancel();
+            // Jobs that have not started yet are dropped right away.
+            if (job.future.cancel(false)) {
+              jobs.remove(job.id);
+              emit(job.id, "cancelled", null);
+            }
+          }
+        }
+        return true;
+      case "shutdown":
+        return false;
+      default:
+        emit(id == null ? null : id.toString(), "error",
+            "\"message\": " + Json.quote("Unknown op: " + op));
+        return true;
+    }
+  }
+
+  private void submit(String id, Map<String, Object> request) {
+    if (jobs.containsKey(id)) {
+      emit(id, "error", "\"message\": \"Duplicate job id.\"");
+      return;
+    }
+
+    SLSParams params = new SLSParams();
+    params.verbosity = Verbosity.QUIET;
+    if (request.get("timeLimit") instanceof Double) {
+      params.instanceTimeout = (Double) request.get("timeLimit");
+    }
+
+    ServiceJob job = new ServiceJob(id);
+    job.handle.addListener(event -> reportProgress(job, event));
+    jobs.put(id, job);
+    emit(id, "queued", null);
+    synchronized (job) {
+      job.future = workers.submit(() -> run(job, request, params));
+    }
+  }
+
+  private void run(ServiceJob job, Map<String, Object> request, SLSParams params) {
+    try {
+      VRPProblem problem;
+      String instanceName;
+      if (request.get("file") != null) {
+        String input = request.get("file").toString();
+        if (!new File(input).isFile()) {
+          throw new IOException("No such instance file: " + input);
+        }
+        problem = VRPProblem.load(input, params.verbosity, params.useInstanceCache);
+        instanceName = new File(input).getName();
+      } else if (request.get("instance") != null) {
+        byte[] instance = request.get("instance").toString().getBytes(StandardCharsets.US_ASCII);
+        problem = VRPProblem.parse(new ByteTokenizer(ByteBuffer.wrap(instance)));
+        instanceName = job.id;
+      } else {
+        throw new IllegalArgumentException("Either \"file\" or \"instance\" is required.");
+      }
+
+      Timer watch = new Timer();
+      watch.start();
+      try (VRPInstanceSLS instance = new VRPInstanceSLS(problem, params, searchPool,
+          job.handle)) {
+        RouteList solution = instance.solve(params.instanceTimeout);
+        watch.stop();
+        if (Double.isInfinite(solution.length)) {
+          throw new IllegalStateException("No feasible solution found");
+        }
+
+        String result = Main.formatResult(instanceName, watch.getTime(), instance, solution);
+        emit(job.id, "done", "\"Cancelled\": " + job.handle.isCancelled() + ", "
+            + result.substring(1, result.length() - 1));
+      }
+    } catch (Exception e) {
+      emit(job.id, "error", "\"message\": " + Json.quote(String.valueOf(e)));
+    } finally {
+      jobs.remove(job.id);
+    }
+  }
+
+  private void reportProgress(ServiceJob job, IncumbentEvent event) {
+    if (event.kind == Kind.BEST_INCUMBENT) {
+      emit(job.id, "incumbent", "\"Time\": " + String.format("%.2f", event.time)
+          + ", \"Result\": " + String.format("%.2f", event.objective)
+          + ", \"Iteration\": " + event.iteration);
+    }
+  }
+
+  private void emit(String id, String event, String fields) {
+    StringBuilder sb = new StringBuilder("{");
+    if (id != null) {
+      sb.append("\"id\": ").append(Json.quote(id)).append(", ");
+    }
+    sb.append("\"event\": ").append(Json.quote(event));
+    if (fields != null) {
+      sb.append(", ").append(fields);
+    }
+    sb.append('}');
+    synchronized (protocol) {
+      protocol.println(sb);
+      protocol.flush();
+    }
+  }
+
+  /**
+   * Finishes all accepted jobs and stops the worker pool.
+   */
+  public void shutdown() throws InterruptedException {
+    workers.shutdown();
+    workers.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+    searchPool.shutdown();
+  }
+
+  private static class ServiceJob {
+
+    final String id;
+    final SearchHandle handle = new SearchHandle();
+    Future<?> future;
+
+    ServiceJob(String id) {
+      this.id = id;
+    }
+  }
+}
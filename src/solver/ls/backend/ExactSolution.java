@@ -0,0 +1,28 @@
+package solver.ls.backend;
+
+import java.util.List;
+
+/**
+ * Solution of an exact solve.
+ */
+public class ExactSolution {
+
+  /**
+   * Routes of the solution, each starting and ending at the depot.
+   */
+  public final List<List<Integer>> routes;
+  /**
+   * Normalized length of the routes.
+   */
+  public final double objective;
+  /**
+   * Whether the routes are proven optimal.
+   */
+  public final boolean optimal;
+
+  public ExactSolution(List<List<Integer>> routes, double objective, boolean optimal) {
+    this.routes = routes;
+    this.objective = objective;
+    this.optimal = optimal;
+  }
+}
@@ -0,0 +1,70 @@
+package solver.ls.backend;
+
+import java.util.List;
+import java.util.Random;
+import solver.ls.instances.VRPProblem;
+import solver.ls.operators.RoutePool.PooledRoute;
+
+/**
+ * Mixed-integer programming solver for the parts of the search that use one: the initial bin
+ * packing, route recombination, exact solves of (sub)problems and lower bounds. Implementations
+ * live in their own build module and are found with {@link MipBackends#find()}; without one, the
+ * search uses its pure-Java fallbacks and skips the exact parts.
+ *
+ * <p>Every method may throw a {@link RuntimeException} or {@link LinkageError} if the solver
+ * turns out not to work, e.g. when its native library is missing.
+ */
+public interface MipBackend {
+
+  /**
+   * Name of the solver, for the log.
+   */
+  String name();
+
+  /**
+   * Assigns items to bins without exceeding their capacity.
+   *
+   * @param sizes    size of every item.
+   * @param numBins  number of bins.
+   * @param capacity capacity of every bin.
+   * @param random   random number generator to seed the solver with.
+   * @return bin of every item.
+   * @throws IllegalArgumentException if the items do not fit into the bins.
+   */
+  int[] packBins(int[] sizes, int numBins, int capacity, Random random);
+
+  /**
+   * Chooses routes that together serve every customer exactly once, with the least total cost.
+   *
+   * @param routes     candidate routes.
+   * @param customers  customers to serve, without the depot.
+   * @param maxRoutes  most routes to choose.
+   * @param upperBound cost the chosen routes have to stay below.
+   * @param timeLimit  time to spend (seconds).
+   * @return indices of the chosen routes, or null if no cheaper partition was found.
+   */
+  int[] partitionRoutes(List<PooledRoute> routes, int[] customers, int maxRoutes,
+      double upperBound, double timeLimit);
+
+  /**
+   * Solves the problem exactly, stopping at the time limit.
+   *
+   * @param problem   problem to solve; must not be a subproblem.
+   * @param start     routes to start from and to beat, or null.
+   * @param timeLimit time to spend (seconds).
+   * @param threads   number of solver threads, 0 for automatic.
+   * @param quiet     whether to suppress the solver log.
+   * @return best solution found.
+   * @throws IllegalArgumentException if no solution was found.
+   */
+  ExactSolution solve(VRPProblem problem, List<List<Integer>> start, double timeLimit,
+      int threads, boolean quiet);
+
+  /**
+   * Lower bound on the optimal tour length, from the LP relaxation with capacity cuts.
+   *
+   * @param problem   problem to bound; must not be a subproblem.
+   * @param timeLimit time to spend (seconds).
+   */
+  double lowerBound(VRPProblem problem, double timeLimit);
+}
@@ -0,0 +1,38 @@
+package solver.ls.backend;
+
+import java.util.Iterator;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+
+/**
+ * Finds the MIP backend on the classpath. A backend module registers its implementation in
+ * META-INF/services/solver.ls.backend.MipBackend.
+ */
+public class MipBackends {
+
+  private MipBackends() {
+  }
+
+  /**
+   * The first registered backend, or null if there is none or it cannot be loaded. Looked up
+   * once; the solver behind it is only initialized when it is first used.
+   */
+  public static MipBackend find() {
+    return Holder.BACKEND;
+  }
+
+  private static class Holder {
+
+    static final MipBackend BACKEND = load();
+
+    private static MipBackend load() {
+      try {
+        Iterator<MipBackend> backends = ServiceLoader.load(MipBackend.class).iterator();
+        return backends.hasNext() ? backends.next() : null;
+      } catch (ServiceConfigurationError | LinkageError e) {
+        // E.g. the backend module is there but its solver library is not.
+        return null;
+      }
+    }
+  }
+}
@@ -8,6 +8,11 @@ public class Interchange implements Cloneable {
   public Insertion[] insertionList1;
   public int routeIdx2;
   public Insertion[] insertionList2;
+  /**
+   * Segments exchanged between the routes, or null for customer insertions.
+   */
+  public Segment segment1;
+  public Segment segment2;
 
   public Interchange(int routeIdx1, Insertion[] insertionList1, int routeIdx2,
       Insertion[] insertionList2) {
@@ -17,11 +22,25 @@ public class Interchange implements Cloneable {
     this.insertionList2 = insertionList2;
   }
 
+  /**
+   * Exchange of a segment of the first route with a segment of the second route.
+   */
+  public Interchange(int routeIdx1, Segment segment1, int routeIdx2, Segment segment2) {
+    this(routeIdx1, new Insertion[]{}, routeIdx2, new Insertion[]{});
+    this.segment1 = segment1;
+    this.segment2 = segment2;
+  }
+
+  public boolean isSegmentExchange() {
+    return segment1 != null;
+  }
+
   @Override
   public String toString() {
     return "{" + "\"routeIdx1\": " + routeIdx1 + ", \"insertionList1\": " + Arrays.toString(
         insertionList1) + ", \"routeIdx2\": " + routeIdx2 + ", \"insertionList2\": "
-        + Arrays.toString(insertionList2) + '}';
+        + Arrays.toString(insertionList2) + (isSegmentExchange() ? ", \"segment1\": " + segment1
+        + ", \"segment2\": " + segment2 : "") + '}';
   }
 
   @Override
@@ -36,6 +55,10 @@ public class Interchange implements Cloneable {
       for (int i = 0; i < insertionList2.length; i++) {
         clone.insertionList2[i] = insertionList2[i].clone();
       }
+      if (isSegmentExchange()) {
+        clone.segment1 = segment1.clone();
+        clone.segment2 = segment2.clone();
+      }
       return clone;
     } catch (CloneNotSupportedException e) {
       throw new AssertionError();
@@ -8,9 +8,19 @@ public class Route implements Cloneable {
   public int[] customers;
   public int demand;
   public int length;
+  /**
+   * Demand of the customers up to each position, inclusive.
+   */
+  public int[] prefixDemand;
+  /**
+   * Length of the route from the depot up to each position.
+   */
+  public double[] prefixLength;
 
   public Route(List<Integer> customers, int numCustomers, int demand) {
     this.customers = new int[numCustomers + 1];
+    this.prefixDemand = new int[numCustomers + 1];
+    this.prefixLength = new double[numCustomers + 1];
     for (int i = 0; i < customers.size(); i++) {
       this.customers[i] = customers.get(i);
     }
@@ -31,9 +41,31 @@ public class Route implements Cloneable {
       throw new RuntimeException(e);
     }
     newRoute.customers = Arrays.copyOf(customers, customers.length);
+    newRoute.prefixDemand = Arrays.copyOf(prefixDemand, prefixDemand.length);
+    newRoute.prefixLength = Arrays.copyOf(prefixLength, prefixLength.length);
     return newRoute;
   }
 
+  /**
+   * Recalculates the prefix demands and lengths after the customers changed.
+   */
+  public void updatePrefixes(int[] demandOfCustomer, double[][] distances) {
+    prefixDemand[0] = demandOfCustomer[customers[0]];
+    prefixLength[0] = 0;
+    for (int i = 1; i < length; i++) {
+      prefixDemand[i] = prefixDemand[i - 1] + demandOfCustomer[customers[i]];
+      prefixLength[i] = prefixLength[i - 1] + distances[customers[i - 1]][customers[i]];
+    }
+  }
+
+  /**
+   * Total demand of the customers of a segment.
+   */
+  public int segmentDemand(Segment segment) {
+    return segment.isEmpty() ? 0
+        : prefixDemand[segment.end] - prefixDemand[segment.start - 1];
+  }
+
   public double calculateRouteLength(double[][] distances) {
     double routeLength = 0;
     for (int i = 0; i < length - 1; i++) {
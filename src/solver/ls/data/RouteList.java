@@ -2,11 +2,17 @@ package solver.ls.data;
 
 import static solver.ls.incremental.EdgeDeltaCalculators.edgeDelta;
 import static solver.ls.incremental.EdgeDeltaCalculators.performRawInterchange;
+import static solver.ls.incremental.EdgeDeltaCalculators.performRawSegmentExchange;
 
 import java.util.Arrays;
 
 public class RouteList implements Cloneable {
 
+  /**
+   * Number of segment ends of a segment exchange, see {@link #segmentEndCustomer}.
+   */
+  public static final int NUM_SEGMENT_ENDS = 4;
+
   private final double[][] distances;
   private final int[] demandOfCustomer;
   private final int vehicleCapacity;
@@ -27,6 +33,9 @@ public class RouteList implements Cloneable {
     this.longTermMemory = longTermMemory;
     this.numCustomers = numCustomers;
     this.excessCapacity = excessCapacity;
+    for (Route route : routes) {
+      route.updatePrefixes(demandOfCustomer, distances);
+    }
   }
 
   @Override
@@ -63,6 +72,14 @@ public class RouteList implements Cloneable {
     for (Insertion insertion : interchange.insertionList2) {
       customerUsePenalty += longTermMemory[route2.customers[insertion.fromCustomerIdx]];
     }
+    if (interchange.isSegmentExchange()) {
+      for (int end = 0; end < NUM_SEGMENT_ENDS; end++) {
+        int customer = segmentEndCustomer(interchange, end);
+        if (customer >= 0) {
+          customerUsePenalty += longTermMemory[customer];
+        }
+      }
+    }
 
     double newLength = length + edgeDelta(interchange, this, distances);
     double ecPenalty =
@@ -85,6 +102,13 @@ public class RouteList implements Cloneable {
     int newCustomerDemandRoute1 = route1.demand;
     int newCustomerDemandRoute2 = route2.demand;
 
+    if (interchange.isSegmentExchange()) {
+      int segmentDemand1 = route1.segmentDemand(interchange.segment1);
+      int segmentDemand2 = route2.segmentDemand(interchange.segment2);
+      newCustomerDemandRoute1 += segmentDemand2 - segmentDemand1;
+      newCustomerDemandRoute2 += segmentDemand1 - segmentDemand2;
+    }
+
     for (Insertion insertion : interchange.insertionList1) {
       int customer = route1.customers[insertion.fromCustomerIdx];
       newCustomerDemandRoute1 -= demandOfCustomer[customer];
@@ -113,6 +137,17 @@ public class RouteList implements Cloneable {
 
     excessCapacity = excessCapacity(interchange, route1, route2);
 
+    if (interchange.isSegmentExchange()) {
+      int segmentDemand1 = route1.segmentDemand(interchange.segment1);
+      int segmentDemand2 = route2.segmentDemand(interchange.segment2);
+      route1.demand += segmentDemand2 - segmentDemand1;
+      route2.demand += segmentDemand1 - segmentDemand2;
+      performRawSegmentExchange(route1, route2, interchange.segment1, interchange.segment2);
+      route1.updatePrefixes(demandOfCustomer, distances);
+      route2.updatePrefixes(demandOfCustomer, distances);
+      return;
+    }
+
     // Update customer demands for the routes.
     for (Insertion insertion : interchange.insertionList1) {
       int customer = route1.customers[insertion.fromCustomerIdx];
@@ -127,5 +162,47 @@ public class RouteList implements Cloneable {
     }
 
     performRawInterchange(route1, route2, interchange.insertionList1, interchange.insertionList2);
+    route1.updatePrefixes(demandOfCustomer, distances);
+    route2.updatePrefixes(demandOfCustomer, distances);
+  }
+
+  /**
+   * Records the route and the position within it of every customer.
+   */
+  public void locateCustomers(int[] routeOfCustomer, int[] positionOfCustomer) {
+    for (int routeIdx = 0; routeIdx < routes.length; routeIdx++) {
+      Route route = routes[routeIdx];
+      for (int i = 1; i < route.length - 1; i++) {
+        routeOfCustomer[route.customers[i]] = routeIdx;
+        positionOfCustomer[route.customers[i]] = i;
+      }
+    }
+  }
+
+  /**
+   * Recalculates the prefix data of a route whose order was changed in place.
+   */
+  public void updatePrefixes(int routeIdx) {
+    routes[routeIdx].updatePrefixes(demandOfCustomer, distances);
+  }
+
+  /**
+   * Customer at one end of an exchanged segment: the first (0) or last (1) customer of the first
+   * segment, or of the second one (2, 3). The ends identify a segment exchange in the short- and
+   * long-term memories. They are the ends of what moves, not the customers on the broken edges:
+   * the last customer of a 2-opt* tail, for one, keeps its edge to the depot.
+   *
+   * @return the customer, or -1 if the segment is empty or the end repeats its only customer.
+   */
+  public int segmentEndCustomer(Interchange interchange, int end) {
+    Route route = routes[end < 2 ? interchange.routeIdx1 : interchange.routeIdx2];
+    Segment segment = end < 2 ? interchange.segment1 : interchange.segment2;
+    if (segment.isEmpty()) {
+      return -1;
+    }
+    if (end % 2 == 0) {
+      return route.customers[segment.start];
+    }
+    return segment.end != segment.start ? route.customers[segment.end] : -1;
   }
 }
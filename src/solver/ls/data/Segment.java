@@ -0,0 +1,44 @@
+package solver.ls.data;
+
+/**
+ * Consecutive customers of a route, between positions start and end inclusive. The segment is
+ * empty if end is start - 1, i.e. it is the gap before position start.
+ */
+public class Segment implements Cloneable {
+
+  public int start;
+  public int end;
+  /**
+   * Whether the segment is reversed when it is moved to the other route.
+   */
+  public boolean reversed;
+
+  public Segment(int start, int end, boolean reversed) {
+    this.start = start;
+    this.end = end;
+    this.reversed = reversed;
+  }
+
+  public int size() {
+    return end - start + 1;
+  }
+
+  public boolean isEmpty() {
+    return end < start;
+  }
+
+  @Override
+  public String toString() {
+    return "{" + "\"start\": " + start + ", \"end\": " + end + ", \"reversed\": " + reversed
+        + '}';
+  }
+
+  @Override
+  public Segment clone() {
+    try {
+      return (Segment) super.clone();
+    } catch (CloneNotSupportedException e) {
+      throw new AssertionError();
+    }
+  }
+}
@@ -9,6 +9,7 @@ import solver.ls.data.Interchange;
 import solver.ls.data.RemovedCustomer;
 import solver.ls.data.Route;
 import solver.ls.data.RouteList;
+import solver.ls.data.Segment;
 
 public class EdgeDeltaCalculators {
 
@@ -268,6 +269,89 @@ public class EdgeDeltaCalculators {
     return route1ExtractionCost + route2ExtractionCost + route1InsertionCost + route2InsertionCost;
   }
 
+  /**
+   * Length change of exchanging two segments, in constant time from the prefix lengths.
+   */
+  private static double deltaSegments(Route route1, Route route2, Interchange interchange,
+      double[][] distances) {
+    double oldLength = route1.prefixLength[route1.length - 1]
+        + route2.prefixLength[route2.length - 1];
+    double newLength =
+        replacedLength(route1, interchange.segment1, route2, interchange.segment2, distances)
+            + replacedLength(route2, interchange.segment2, route1, interchange.segment1,
+            distances);
+
+    // Sanity check.
+    /*
+    assert Math.abs(naiveSegmentDelta(route1, route2, interchange, distances) - newLength
+        + oldLength) < Math.pow(10, -6);
+     */
+
+    return newLength - oldLength;
+  }
+
+  /**
+   * Length of a route after replacing one of its segments with a segment of another route.
+   */
+  private static double replacedLength(Route route, Segment removed, Route from,
+      Segment inserted, double[][] distances) {
+    int before = route.customers[removed.start - 1];
+    int after = route.customers[removed.end + 1];
+    double keptLength = route.prefixLength[removed.start - 1]
+        + route.prefixLength[route.length - 1] - route.prefixLength[removed.end + 1];
+
+    if (inserted.isEmpty()) {
+      return keptLength + distances[before][after];
+    }
+
+    int first = from.customers[inserted.reversed ? inserted.end : inserted.start];
+    int last = from.customers[inserted.reversed ? inserted.start : inserted.end];
+    // Distances are symmetric, so a reversed segment keeps its length.
+    double insertedLength = from.prefixLength[inserted.end] - from.prefixLength[inserted.start];
+    return keptLength + distances[before][first] + insertedLength + distances[last][after];
+  }
+
+  private static double naiveSegmentDelta(Route route1, Route route2, Interchange interchange,
+      double[][] distances) {
+    Route clonedRoute1 = route1.clone();
+    Route clonedRoute2 = route2.clone();
+
+    performRawSegmentExchange(clonedRoute1, clonedRoute2, interchange.segment1,
+        interchange.segment2);
+
+    return clonedRoute1.calculateRouteLength(distances)
+        + clonedRoute2.calculateRouteLength(distances)
+        - route1.calculateRouteLength(distances) - route2.calculateRouteLength(distances);
+  }
+
+  /**
+   * Exchanges two segments between the routes, reversing them as requested. Demands and prefix
+   * data are left to the caller.
+   */
+  public static void performRawSegmentExchange(Route route1, Route route2, Segment segment1,
+      Segment segment2) {
+    int[] customers1 = exchangedCustomers(route1, segment1, route2, segment2);
+    int[] customers2 = exchangedCustomers(route2, segment2, route1, segment1);
+    route1.length += segment2.size() - segment1.size();
+    route2.length += segment1.size() - segment2.size();
+    route1.customers = customers1;
+    route2.customers = customers2;
+  }
+
+  private static int[] exchangedCustomers(Route route, Segment removed, Route from,
+      Segment inserted) {
+    int[] customers = new int[route.customers.length];
+    int length = removed.start;
+    System.arraycopy(route.customers, 0, customers, 0, removed.start);
+    for (int i = 0; i < inserted.size(); i++) {
+      customers[length++] = from.customers[inserted.reversed ? inserted.end - i
+          : inserted.start + i];
+    }
+    System.arraycopy(route.customers, removed.end + 1, customers, length,
+        route.length - removed.end - 1);
+    return customers;
+  }
+
   public static void performRawInterchange(Route route1, Route route2,
       Insertion[] insertionList1,
       Insertion[] insertionList2) {
@@ -326,14 +410,18 @@ public class EdgeDeltaCalculators {
     Route route1 = routeList.routes[interchange.routeIdx1];
     Route route2 = routeList.routes[interchange.routeIdx2];
 
-    if (interchange.insertionList1.length == 1 && interchange.insertionList2.length == 0) {
+    if (interchange.isSegmentExchange()) {
+      return deltaSegments(route1, route2, interchange, distances);
+    } else if (interchange.insertionList1.length == 1
+        && interchange.insertionList2.length == 0) {
       return delta0I(route1, route2, interchange, distances);
     } else if (interchange.insertionList1.length == 1 && interchange.insertionList2.length == 1) {
       return delta1I(route1, route2, interchange, distances);
     } else if (interchange.insertionList1.length == 2 && interchange.insertionList2.length == 2) {
       return delta2I(route1, route2, interchange, distances);
     } else {
-      throw new IllegalArgumentException("Can only process (1,0), (1,1), (2,2) -interchanges.");
+      throw new IllegalArgumentException(
+          "Can only process (1,0), (1,1), (2,2) -interchanges and segment exchanges.");
     }
   }
 }
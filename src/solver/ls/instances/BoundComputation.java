@@ -0,0 +1,53 @@
+package solver.ls.instances;
+
+import solver.ls.backend.MipBackend;
+import solver.ls.backend.MipBackends;
+import solver.ls.utils.Verbosity;
+
+/**
+ * Computes a lower bound on the optimal tour length on its own thread while the search is
+ * running, and hands it to the search through its handle. The search uses the bound to stop
+ * early and to flag solutions as proven optimal.
+ */
+public class BoundComputation {
+
+  private BoundComputation() {
+  }
+
+  /**
+   * Starts computing the LP bound of the problem.
+   *
+   * @param problem   problem to bound; must not be a subproblem.
+   * @param timeLimit time to spend on the bound (seconds).
+   * @param handle    handle of the search to report the bound to.
+   * @param verbosity how much to print.
+   * @return the thread computing the bound, or null if there is no MIP backend.
+   */
+  public static Thread start(VRPProblem problem, double timeLimit, SearchHandle handle,
+      Verbosity verbosity) {
+    MipBackend backend = MipBackends.find();
+    if (backend == null) {
+      if (verbosity.atLeast(Verbosity.NORMAL)) {
+        System.out.println("Lower bound unavailable: no MIP backend");
+      }
+      return null;
+    }
+    Thread thread = new Thread(() -> {
+      try {
+        double bound = backend.lowerBound(problem, timeLimit);
+        handle.setLowerBound(bound);
+        if (verbosity.atLeast(Verbosity.NORMAL)) {
+          System.out.println("Lower bound: " + String.format("%.2f", bound));
+        }
+      } catch (RuntimeException | LinkageError e) {
+        // The search does not depend on the bound, e.g. when the solver library is missing.
+        if (verbosity.atLeast(Verbosity.NORMAL)) {
+          System.out.println("Lower bound unavailable: " + e);
+        }
+      }
+    }, "lower-bound");
+    thread.setDaemon(true);
+    thread.start();
+    return thread;
+  }
+}
@@ -0,0 +1,198 @@
+package solver.ls.instances;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Finds customer sets whose rounded capacity constraint x(delta(S)) >= 2 * ceil(d(S) / Q) is
+ * violated by a solution of the edge formulation. The connected components of the support graph
+ * are checked first, then shrunk greedily towards a more violated set. For integer solutions the
+ * components are the routes and subtours, so every infeasible integer solution is cut off.
+ */
+public class CapacityCutSeparator {
+
+  /**
+   * Edge values below this count as zero.
+   */
+  private static final double EPSILON = 1e-6;
+
+  private final int[] demandOfCustomer;
+  private final int vehicleCapacity;
+
+  public CapacityCutSeparator(int[] demandOfCustomer, int vehicleCapacity) {
+    this.demandOfCustomer = demandOfCustomer;
+    this.vehicleCapacity = vehicleCapacity;
+  }
+
+  /**
+   * Separates violated rounded capacity constraints.
+   *
+   * @param x            symmetric edge values, including the depot 0.
+   * @param minViolation smallest violation of a reported constraint.
+   * @return customer sets of the violated constraints, without duplicates.
+   */
+  public List<int[]> separate(double[][] x, double minViolation) {
+    int n = x.length;
+    double[] rowSum = new double[n];
+    for (int i = 1; i < n; i++) {
+      for (int j = 0; j < n; j++) {
+        rowSum[i] += x[i][j];
+      }
+    }
+
+    List<int[]> cuts = new ArrayList<>();
+    Set<BitSet> seen = new HashSet<>();
+    for (List<Integer> component : components(x)) {
+      int[] set = component.stream().mapToInt(Integer::intValue).toArray();
+      if (violation(x, set) >= minViolation) {
+        addCut(cuts, seen, set);
+      }
+      shrink(x, rowSum, set, minViolation, cuts, seen);
+    }
+    return cuts;
+  }
+
+  /**
+   * Right-hand side of the rounded capacity constraint of a set minus its left-hand side.
+   */
+  public double violation(double[][] x, int[] set) {
+    boolean[] inSet = new boolean[x.length];
+    int demand = 0;
+    for (int customer : set) {
+      inSet[customer] = true;
+      demand += demandOfCustomer[customer];
+    }
+    double cut = 0;
+    for (int i : set) {
+      for (int j = 0; j < x.length; j++) {
+        if (!inSet[j]) {
+          cut += x[i][j];
+        }
+      }
+    }
+    return 2 * minVehicles(demand) - cut;
+  }
+
+  /**
+   * Fewest vehicles the rounded capacity constraint of a set requires.
+   */
+  public int minVehicles(int[] set) {
+    int demand = 0;
+    for (int customer : set) {
+      demand += demandOfCustomer[customer];
+    }
+    return minVehicles(demand);
+  }
+
+  /**
+   * Connected components of the customers over the edges with a positive value, ignoring the
+   * depot.
+   */
+  private List<List<Integer>> components(double[][] x) {
+    int n = x.length;
+    int[] parent = new int[n];
+    for (int i = 0; i < n; i++) {
+      parent[i] = i;
+    }
+    for (int i = 1; i < n; i++) {
+      for (int j = i + 1; j < n; j++) {
+        if (x[i][j] > EPSILON) {
+          parent[find(parent, i)] = find(parent, j);
+        }
+      }
+    }
+
+    List<List<Integer>> components = new ArrayList<>();
+    int[] componentOf = new int[n];
+    Arrays.fill(componentOf, -1);
+    for (int i = 1; i < n; i++) {
+      int root = find(parent, i);
+      if (componentOf[root] < 0) {
+        componentOf[root] = components.size();
+        components.add(new ArrayList<>());
+      }
+      components.get(componentOf[root]).add(i);
+    }
+    return components;
+  }
+
+  private static int find(int[] parent, int i) {
+    while (parent[i] != i) {
+      parent[i] = parent[parent[i]];
+      i = parent[i];
+    }
+    return i;
+  }
+
+  /**
+   * Removes customers from the set one at a time, each time the one whose removal leaves the
+   * most violated constraint, and reports every violated set along the way.
+   */
+  private void shrink(double[][] x, double[] rowSum, int[] set, double minViolation,
+      List<int[]> cuts, Set<BitSet> seen) {
+    int size = set.length;
+    if (size < 3) {
+      return;
+    }
+    int[] members = set.clone();
+    // Value of the edges from every member to the rest of the set.
+    double[] inside = new double[size];
+    int demand = 0;
+    double cut = 0;
+    for (int a = 0; a < size; a++) {
+      demand += demandOfCustomer[members[a]];
+      for (int b = 0; b < size; b++) {
+        inside[a] += x[members[a]][members[b]];
+      }
+      cut += rowSum[members[a]] - inside[a];
+    }
+
+    while (size > 2) {
+      int best = -1;
+      double bestViolation = Double.NEGATIVE_INFINITY;
+      for (int a = 0; a < size; a++) {
+        int customer = members[a];
+        double newCut = cut - (rowSum[customer] - inside[a]) + inside[a];
+        double newViolation = 2 * minVehicles(demand - demandOfCustomer[customer]) - newCut;
+        if (newViolation > bestViolation) {
+          best = a;
+          bestViolation = newViolation;
+        }
+      }
+
+      // Do the removal.
+      int removed = members[best];
+      cut = cut - (rowSum[removed] - inside[best]) + inside[best];
+      demand -= demandOfCustomer[removed];
+      size--;
+      members[best] = members[size];
+      inside[best] = inside[size];
+      for (int a = 0; a < size; a++) {
+        inside[a] -= x[members[a]][removed];
+      }
+
+      if (bestViolation >= minViolation) {
+        addCut(cuts, seen, Arrays.copyOf(members, size));
+      }
+    }
+  }
+
+  private int minVehicles(int demand) {
+    // Every set needs a vehicle, even without demand.
+    return Math.max(1, (demand + vehicleCapacity - 1) / vehicleCapacity);
+  }
+
+  private static void addCut(List<int[]> cuts, Set<BitSet> seen, int[] set) {
+    BitSet key = new BitSet();
+    for (int customer : set) {
+      key.set(customer);
+    }
+    if (seen.add(key)) {
+      cuts.add(set);
+    }
+  }
+}
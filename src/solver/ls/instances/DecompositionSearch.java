@@ -0,0 +1,388 @@
+package solver.ls.instances;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import solver.ls.data.Route;
+import solver.ls.data.RouteList;
+import solver.ls.listeners.IncumbentEvent;
+import solver.ls.listeners.IncumbentEvent.Kind;
+import solver.ls.utils.Timer;
+import solver.ls.utils.Verbosity;
+
+/**
+ * Search for very large instances. The routes of the current solution are partitioned into
+ * clusters of neighboring routes, every cluster is searched as an independent subproblem in
+ * parallel, and the improved routes are put back together. The partition is shifted every round
+ * so that customers can move across the borders of the previous clusters.
+ */
+public class DecompositionSearch implements AutoCloseable {
+
+  /**
+   * Problem to solve.
+   */
+  private final VRPProblem problem;
+  /**
+   * Parameters of the subproblem searches.
+   */
+  private final SLSParams subParams;
+  /**
+   * Handle through which other threads follow and cancel the search.
+   */
+  private final SearchHandle handle;
+  /**
+   * Runs the subproblem searches, which mostly wait for the neighborhood pool.
+   */
+  private final ExecutorService clusterPool;
+  /**
+   * Evaluates neighborhoods for all subproblem searches.
+   */
+  private final ExecutorService searchPool;
+  /**
+   * Whether the neighborhood pool was created by this search.
+   */
+  private final boolean ownsSearchPool;
+  /**
+   * Solver of the full problem, providing the initial solution.
+   */
+  private final VRPInstanceSLS master;
+  /**
+   * Number of routes per cluster.
+   */
+  private final int routesPerCluster;
+  /**
+   * Time spent per round (seconds).
+   */
+  private final double roundTime;
+  /**
+   * Relative gap to the lower bound at which the search stops.
+   */
+  private final double gapTolerance;
+  /**
+   * Time since the creation of the search.
+   */
+  private final Timer watch;
+  /**
+   * Current best solution, with normalized length.
+   */
+  private RouteList best;
+  /**
+   * Number of finished rounds.
+   */
+  public int currentRound = 0;
+  /**
+   * Search iterations performed by all subproblem searches.
+   */
+  public int currentIteration = 0;
+
+  /**
+   * Creates a decomposed search without starting it.
+   *
+   * @param problem        problem to solve.
+   * @param params         solver parameters.
+   * @param executorOrNull thread pool to evaluate neighborhoods on; if null, the search creates its
+   *                       own pool of params.numThreads threads.
+   * @param handle         handle through which other threads follow and cancel the search.
+   */
+  public DecompositionSearch(VRPProblem problem, SLSParams params, ExecutorService executorOrNull,
+      SearchHandle handle) {
+    this.problem = problem;
+    this.handle = handle;
+    this.routesPerCluster = params.decompositionRoutesPerCluster;
+    this.roundTime = params.decompositionRoundTime;
+    this.gapTolerance = params.gapTolerance;
+    this.watch = new Timer();
+    watch.start();
+
+    ownsSearchPool = executorOrNull == null;
+    searchPool = ownsSearchPool ? Executors.newFixedThreadPool(params.numThreads) : executorOrNull;
+    clusterPool = Executors.newCachedThreadPool();
+
+    // Packing restarts for the full problem are what the decomposition avoids.
+    SLSParams masterParams = new SLSParams(params);
+    masterParams.backgroundRestarts = false;
+    masterParams.routeRecombination = false;
+    masterParams.subproblemThreads = 0;
+    master = new VRPInstanceSLS(problem, masterParams, searchPool, handle);
+
+    subParams = new SLSParams(params);
+    subParams.warmStartFile = null;
+    subParams.warmStartRestarts = false;
+    subParams.backgroundRestarts = false;
+    subParams.routeRecombination = false;
+    subParams.subproblemThreads = 0;
+    subParams.verbosity = Verbosity.QUIET;
+  }
+
+  /**
+   * Solver of the full problem, used to validate and serialize solutions.
+   */
+  public VRPInstanceSLS master() {
+    return master;
+  }
+
+  /**
+   * Continues the search for the given time, or until the search is cancelled.
+   *
+   * @param budget time to search for (seconds).
+   * @return best solution found so far, with its length in the original units; infinite if the
+   *     overloaded routes of the initial packing could not be repaired in time.
+   */
+  public RouteList solve(double budget) {
+    double deadline = watch.getTime() + budget;
+    if (best == null) {
+      best = master.currentSolution();
+    }
+
+    while (!handle.isCancelled() && (master.calculateExcessCapacity(best) > 0
+        || handle.gap(best.length / problem.normCoefficient) > gapTolerance)) {
+      double roundBudget = Math.min(roundTime, deadline - watch.getTime());
+      if (roundBudget <= 0) {
+        break;
+      }
+      runRound(partition(best, currentRound), roundBudget);
+      currentRound++;
+    }
+
+    handle.flush();
+    return bestSolution();
+  }
+
+  /**
+   * Best solution found so far, with its length in the original (not normalized) units. The
+   * length is infinite while the routes overload a vehicle.
+   */
+  public RouteList bestSolution() {
+    if (best == null) {
+      best = master.currentSolution();
+    }
+    RouteList solution = best.clone();
+    if (master.calculateExcessCapacity(best) > 0) {
+      solution.length = Double.POSITIVE_INFINITY;
+      return solution;
+    }
+    double distance = 0;
+    for (Route route : solution.routes) {
+      distance += route.calculateRouteLength(problem.originalDistances);
+    }
+    solution.length = distance;
+    return solution;
+  }
+
+  /**
+   * Splits the routes into clusters of neighboring routes by the angle of their centroid around
+   * the depot. Every round starts the clusters half a cluster further. Routes without customers
+   * are spread over the clusters as spare vehicles.
+   *
+   * @param solution current solution.
+   * @param round    index of the round.
+   * @return route indices of every cluster.
+   */
+  private List<int[]> partition(RouteList solution, int round) {
+    List<Integer> used = new ArrayList<>();
+    List<Integer> empty = new ArrayList<>();
+    double[] angles = new double[solution.routes.length];
+    double depotX = problem.xCoordOfCustomer[0];
+    double depotY = problem.yCoordOfCustomer[0];
+
+    for (int r = 0; r < solution.routes.length; r++) {
+      Route route = solution.routes[r];
+      if (route.length <= 2) {
+        empty.add(r);
+        continue;
+      }
+      double x = 0;
+      double y = 0;
+      for (int i = 1; i < route.length - 1; i++) {
+        x += problem.xCoordOfCustomer[route.customers[i]];
+        y += problem.yCoordOfCustomer[route.customers[i]];
+      }
+      angles[r] = Math.atan2(y / (route.length - 2) - depotY, x / (route.length - 2) - depotX);
+      used.add(r);
+    }
+    used.sort(Comparator.comparingDouble(r -> angles[r]));
+
+    int numClusters = Math.max(1, (used.size() + routesPerCluster - 1) / routesPerCluster);
+    int offset = used.isEmpty() ? 0 : (round * Math.max(1, routesPerCluster / 2)) % used.size();
+    List<List<Integer>> clusters = new ArrayList<>();
+    for (int c = 0; c < numClusters; c++) {
+      clusters.add(new ArrayList<>());
+    }
+    // Consecutive routes around the depot go to the same cluster.
+    for (int i = 0; i < used.size(); i++) {
+      int cluster = (int) ((long) i * numClusters / used.size());
+      clusters.get(cluster).add(used.get((i + offset) % used.size()));
+    }
+    for (int i = 0; i < empty.size(); i++) {
+      clusters.get(i % numClusters).add(empty.get(i));
+    }
+
+    List<int[]> partition = new ArrayList<>();
+    for (List<Integer> cluster : clusters) {
+      // A single route has nothing to exchange customers with.
+      if (cluster.size() >= 2) {
+        partition.add(cluster.stream().mapToInt(Integer::intValue).toArray());
+      }
+    }
+    return partition;
+  }
+
+  /**
+   * Searches all clusters in parallel and keeps the routes of every improved cluster.
+   */
+  private void runRound(List<int[]> clusters, double roundBudget) {
+    double roundDeadline = watch.getTime() + roundBudget;
+    List<SearchHandle> subHandles = new ArrayList<>();
+    List<Future<ClusterResult>> futures = new ArrayList<>();
+    for (int[] cluster : clusters) {
+      SearchHandle subHandle = new SearchHandle();
+      subHandles.add(subHandle);
+      futures.add(clusterPool.submit(() -> searchCluster(cluster, roundDeadline, subHandle)));
+    }
+
+    List<List<Integer>> routes = toLists(best);
+    boolean improved = false;
+    for (Future<ClusterResult> future : futures) {
+      ClusterResult result = awaitResult(future, subHandles);
+      if (result == null) {
+        continue;
+      }
+      currentIteration += result.iterations;
+      if (result.solution != null) {
+        List<List<Integer>> clusterRoutes = toLists(result.solution);
+        for (int i = 0; i < result.cluster.length; i++) {
+          routes.set(result.cluster[i], clusterRoutes.get(i));
+        }
+        improved = true;
+      }
+    }
+
+    if (improved) {
+      best = master.createRouteList(routes);
+    }
+    // Overloaded routes may take several rounds to repair, only feasible solutions are shared.
+    if (improved && master.calculateExcessCapacity(best) == 0) {
+      handle.publish(new IncumbentEvent(Kind.BEST_INCUMBENT, best.length / problem.normCoefficient,
+          watch.getTime(), currentIteration, best));
+    }
+  }
+
+  /**
+   * Waits for a cluster search, passing on the cancellation of the whole search.
+   *
+   * @return the result, or null if the cluster search failed.
+   */
+  private ClusterResult awaitResult(Future<ClusterResult> future, List<SearchHandle> subHandles) {
+    while (true) {
+      try {
+        return future.get(50, TimeUnit.MILLISECONDS);
+      } catch (TimeoutException e) {
+        if (handle.isCancelled()) {
+          subHandles.forEach(SearchHandle::cancel);
+        }
+      } catch (ExecutionException e) {
+        System.out.println("Cluster search failed: " + e.getCause());
+        return null;
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        subHandles.forEach(SearchHandle::cancel);
+        return null;
+      }
+    }
+  }
+
+  /**
+   * Searches the subproblem made of the given routes.
+   *
+   * @return the cluster routes if the search improved them. Overloaded routes count as infinitely
+   *     long, so any feasible solution improves them, and so does a less overloaded one.
+   */
+  private ClusterResult searchCluster(int[] cluster, double roundDeadline,
+      SearchHandle subHandle) {
+    List<List<Integer>> routes = new ArrayList<>();
+    List<Integer> customers = new ArrayList<>();
+    double length = 0;
+    int excessCapacity = 0;
+    for (int r : cluster) {
+      Route route = best.routes[r];
+      List<Integer> customerList = new ArrayList<>();
+      for (int i = 0; i < route.length; i++) {
+        customerList.add(route.customers[i]);
+      }
+      customers.addAll(customerList.subList(1, customerList.size() - 1));
+      routes.add(customerList);
+      length += route.calculateRouteLength(problem.distances);
+      excessCapacity += Math.max(0, route.demand - problem.vehicleCapacity);
+    }
+
+    VRPProblem subproblem = problem.subproblem(
+        customers.stream().mapToInt(Integer::intValue).toArray(), cluster.length);
+    try (VRPInstanceSLS solver = new VRPInstanceSLS(subproblem, subParams, searchPool,
+        subHandle)) {
+      RouteList start = solver.createRouteList(routes);
+      boolean repacked = false;
+      if (excessCapacity > 0) {
+        // Any feasible solution is better than overloaded routes. A fresh packing often is one,
+        // the search rarely gets there from the overloaded routes within a round.
+        length = Double.POSITIVE_INFINITY;
+        RouteList packed = solver.packCustomers();
+        if (solver.calculateExcessCapacity(packed) < excessCapacity) {
+          start = packed;
+          repacked = true;
+        }
+      }
+      solver.start(start);
+      solver.solve(roundDeadline - watch.getTime());
+      RouteList solution = solver.bestIncumbent;
+      if (solution.length == Double.POSITIVE_INFINITY) {
+        // Still overloaded: keep the less overloaded packing, the shifted clusters of the next
+        // rounds can take over the rest.
+        return new ClusterResult(cluster, repacked ? start : null, solver.currentIteration);
+      }
+      // Keep the old routes unless the cluster got shorter.
+      boolean better = solution.length < length - 1e-9;
+      return new ClusterResult(cluster, better ? solution : null, solver.currentIteration);
+    }
+  }
+
+  private static List<List<Integer>> toLists(RouteList routeList) {
+    List<List<Integer>> routes = new ArrayList<>();
+    for (Route route : routeList.routes) {
+      routes.add(new ArrayList<>(
+          Arrays.stream(route.customers, 0, route.length).boxed().toList()));
+    }
+    return routes;
+  }
+
+  /**
+   * Stops the search threads. The shared neighborhood pool, if any, is left running.
+   */
+  @Override
+  public void close() {
+    clusterPool.shutdownNow();
+    master.close();
+    if (ownsSearchPool) {
+      searchPool.shutdownNow();
+    }
+  }
+
+  private static class ClusterResult {
+
+    final int[] cluster;
+    final RouteList solution;
+    final int iterations;
+
+    ClusterResult(int[] cluster, RouteList solution, int iterations) {
+      this.cluster = cluster;
+      this.solution = solution;
+      this.iterations = iterations;
+    }
+  }
+}
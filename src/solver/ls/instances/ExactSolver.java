@@ -0,0 +1,89 @@
+package solver.ls.instances;
+
+import java.util.ArrayList;
+import java.util.List;
+import solver.ls.backend.ExactSolution;
+import solver.ls.backend.MipBackend;
+import solver.ls.backend.MipBackends;
+import solver.ls.data.Route;
+import solver.ls.data.RouteList;
+import solver.ls.utils.Timer;
+import solver.ls.utils.Verbosity;
+
+/**
+ * Solves instances small enough for the exact model: a short local search finds a near-optimal
+ * solution, which the exact model of the MIP backend starts from and uses as its cutoff, so that
+ * the MIP only has to close the gap.
+ */
+public class ExactSolver {
+
+  private ExactSolver() {
+  }
+
+  /**
+   * Runs the local search, then the MIP for the rest of the budget.
+   *
+   * @param instance   local search solver of the problem.
+   * @param params     solver parameters.
+   * @param budget     total time to spend (seconds).
+   * @param handle     handle of the search; receives the optimal length as lower bound if the
+   *                   MIP proves it.
+   * @return best solution found, with its length in the original units.
+   */
+  public static RouteList solve(VRPInstanceSLS instance, SLSParams params, double budget,
+      SearchHandle handle) {
+    Timer watch = new Timer();
+    watch.start();
+    RouteList searchSolution = instance.solve(Math.min(params.mipStartSearchTime, budget));
+
+    MipBackend backend = MipBackends.find();
+    if (backend == null) {
+      if (params.verbosity.atLeast(Verbosity.NORMAL)) {
+        System.out.println("Exact solve unavailable: no MIP backend");
+      }
+      return searchSolution;
+    }
+    ExactSolution ip;
+    try {
+      // An overloaded search solution is no valid MIP start.
+      List<List<Integer>> start =
+          Double.isInfinite(searchSolution.length) ? null : toLists(searchSolution);
+      ip = backend.solve(instance.problem, start, budget - watch.getTime(),
+          params.numThreads, !params.verbosity.atLeast(Verbosity.VERBOSE));
+    } catch (RuntimeException | LinkageError e) {
+      // Keep the local search solution, e.g. when the solver library is missing.
+      if (params.verbosity.atLeast(Verbosity.NORMAL)) {
+        System.out.println("Exact solve unavailable: " + e);
+      }
+      return searchSolution;
+    }
+
+    RouteList solution = instance.createRouteList(ip.routes);
+    double length = 0;
+    for (Route route : solution.routes) {
+      length += route.calculateRouteLength(instance.originalDistances);
+    }
+    solution.length = length;
+    if (ip.optimal) {
+      handle.setLowerBound(length);
+    }
+    if (params.verbosity.atLeast(Verbosity.NORMAL)) {
+      System.out.println("MIP " + (ip.optimal ? "proved optimal: " : "stopped at: ")
+          + String.format("%.2f", length) + " (search: "
+          + String.format("%.2f", searchSolution.length) + ")");
+    }
+    return solution.length <= searchSolution.length ? solution : searchSolution;
+  }
+
+  private static List<List<Integer>> toLists(RouteList routeList) {
+    List<List<Integer>> routes = new ArrayList<>();
+    for (Route route : routeList.routes) {
+      List<Integer> customers = new ArrayList<>();
+      for (int i = 0; i < route.length; i++) {
+        customers.add(route.customers[i]);
+      }
+      routes.add(customers);
+    }
+    return routes;
+  }
+}
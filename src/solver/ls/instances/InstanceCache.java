@@ -0,0 +1,169 @@
+package solver.ls.instances;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+/**
+ * Binary cache of a preprocessed instance, stored next to the source file. It holds the
+ * coordinates, the demands, the original distance matrix and the neighbor lists, and is only used
+ * while its content hash matches the source file. The normalized distances are derived on load.
+ */
+public class InstanceCache {
+
+  private static final int MAGIC = 0x56525043;
+  private static final int VERSION = 2;
+  private static final int HASH_LENGTH = 32;
+
+  /**
+   * Cache file for the given instance, hidden so that folder globs do not pick it up.
+   */
+  public static Path cachePath(Path source) {
+    return source.resolveSibling("." + source.getFileName() + ".cache");
+  }
+
+  /**
+   * SHA-256 of the source file, read through a memory mapping.
+   */
+  public static byte[] hash(Path source) throws IOException {
+    try (FileChannel channel = FileChannel.open(source, StandardOpenOption.READ)) {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      digest.update(channel.map(MapMode.READ_ONLY, 0, channel.size()));
+      return digest.digest();
+    } catch (NoSuchAlgorithmException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  /**
+   * Reads the problem from the cache.
+   *
+   * @return the cached problem, or null if the cache is missing, unreadable, corrupt or stale.
+   */
+  public static VRPProblem load(Path cache, byte[] sourceHash) {
+    if (!Files.isRegularFile(cache)) {
+      return null;
+    }
+    try (FileChannel channel = FileChannel.open(cache, StandardOpenOption.READ)) {
+      ByteBuffer buffer = channel.map(MapMode.READ_ONLY, 0, channel.size())
+          .order(ByteOrder.LITTLE_ENDIAN);
+
+      if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+        return null;
+      }
+      byte[] hash = new byte[HASH_LENGTH];
+      buffer.get(hash);
+      if (!Arrays.equals(hash, sourceHash)) {
+        return null;
+      }
+
+      int numCustomers = buffer.getInt();
+      int numVehicles = buffer.getInt();
+      int vehicleCapacity = buffer.getInt();
+      double normCoefficient = buffer.getDouble();
+      // Check the counts against the file before allocating anything from them.
+      long n = numCustomers;
+      if (n < 1 || buffer.remaining() < (Integer.BYTES + 2L * Double.BYTES) * n
+          + Double.BYTES * n * n + Integer.BYTES) {
+        return null;
+      }
+
+      int[] demandOfCustomer = new int[numCustomers];
+      buffer.asIntBuffer().get(demandOfCustomer);
+      buffer.position(buffer.position() + Integer.BYTES * numCustomers);
+
+      double[] xCoordOfCustomer = readDoubles(buffer, numCustomers);
+      double[] yCoordOfCustomer = readDoubles(buffer, numCustomers);
+      double[][] originalDistances = new double[numCustomers][];
+      for (int i = 0; i < numCustomers; i++) {
+        originalDistances[i] = readDoubles(buffer, numCustomers);
+      }
+
+      int neighborListSize = buffer.getInt();
+      if (neighborListSize < 0 || neighborListSize >= numCustomers
+          || buffer.remaining() != (long) Integer.BYTES * numCustomers * neighborListSize) {
+        return null;
+      }
+      double[][] distances =
+          VRPProblem.getNormalizedDistances(originalDistances, normCoefficient);
+      int[][] neighborLists = new int[numCustomers][neighborListSize];
+      IntBuffer neighbors = buffer.asIntBuffer();
+      for (int i = 0; i < numCustomers; i++) {
+        neighbors.get(neighborLists[i]);
+      }
+
+      return new VRPProblem(numVehicles, vehicleCapacity, demandOfCustomer, xCoordOfCustomer,
+          yCoordOfCustomer, distances, originalDistances, normCoefficient, neighborLists, 0);
+    } catch (IOException | RuntimeException e) {
+      // Anything unexpected in the file means the cache has to be rebuilt.
+      return null;
+    }
+  }
+
+  private static double[] readDoubles(ByteBuffer buffer, int count) {
+    double[] values = new double[count];
+    DoubleBuffer view = buffer.asDoubleBuffer();
+    view.get(values);
+    buffer.position(buffer.position() + Double.BYTES * count);
+    return values;
+  }
+
+  /**
+   * Writes the instance to the cache. The file is written next to the cache and moved into place,
+   * so that concurrent solver processes never see a partial cache.
+   */
+  public static void store(VRPProblem problem, Path cache, byte[] sourceHash)
+      throws IOException {
+    int n = problem.numCustomers;
+    int neighborListSize = problem.neighborLists[0].length;
+    long size = 2L * Integer.BYTES + HASH_LENGTH + 3L * Integer.BYTES + Double.BYTES
+        + (long) Integer.BYTES * n + 2L * Double.BYTES * n + (long) Double.BYTES * n * n
+        + Integer.BYTES + (long) Integer.BYTES * n * neighborListSize;
+
+    Path temp = Files.createTempFile(cache.toAbsolutePath().getParent(),
+        cache.getFileName().toString(), ".tmp");
+    try {
+      try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.READ,
+          StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+        ByteBuffer buffer = channel.map(MapMode.READ_WRITE, 0, size)
+            .order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC).putInt(VERSION).put(sourceHash);
+        buffer.putInt(n).putInt(problem.numVehicles).putInt(problem.vehicleCapacity)
+            .putDouble(problem.normCoefficient);
+        for (int demand : problem.demandOfCustomer) {
+          buffer.putInt(demand);
+        }
+        writeDoubles(buffer, problem.xCoordOfCustomer);
+        writeDoubles(buffer, problem.yCoordOfCustomer);
+        for (double[] row : problem.originalDistances) {
+          writeDoubles(buffer, row);
+        }
+        buffer.putInt(neighborListSize);
+        for (int[] row : problem.neighborLists) {
+          buffer.asIntBuffer().put(row);
+          buffer.position(buffer.position() + Integer.BYTES * row.length);
+        }
+      }
+      Files.move(temp, cache, StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(temp);
+    }
+  }
+
+  private static void writeDoubles(ByteBuffer buffer, double[] values) {
+    buffer.asDoubleBuffer().put(values);
+    buffer.position(buffer.position() + Double.BYTES * values.length);
+  }
+}
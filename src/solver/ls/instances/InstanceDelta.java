@@ -0,0 +1,61 @@
+package solver.ls.instances;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Changes to a problem during the day: added and cancelled customers, and adjusted demands.
+ * Customers are referred to by their index in the problem the delta is applied to.
+ */
+public class InstanceDelta {
+
+  public final List<AddedCustomer> addedCustomers = new ArrayList<>();
+  public final Set<Integer> removedCustomers = new LinkedHashSet<>();
+  public final Map<Integer, Integer> demandChanges = new LinkedHashMap<>();
+
+  public InstanceDelta addCustomer(int demand, double x, double y) {
+    addedCustomers.add(new AddedCustomer(demand, x, y));
+    return this;
+  }
+
+  public InstanceDelta removeCustomer(int customer) {
+    if (customer == 0) {
+      throw new IllegalArgumentException("The depot cannot be removed.");
+    }
+    removedCustomers.add(customer);
+    return this;
+  }
+
+  public InstanceDelta changeDemand(int customer, int demand) {
+    demandChanges.put(customer, demand);
+    return this;
+  }
+
+  @Override
+  public String toString() {
+    return "{" + "\"addedCustomers\": " + addedCustomers + ", \"removedCustomers\": "
+        + removedCustomers + ", \"demandChanges\": " + demandChanges + '}';
+  }
+
+  public static class AddedCustomer {
+
+    public final int demand;
+    public final double x;
+    public final double y;
+
+    public AddedCustomer(int demand, double x, double y) {
+      this.demand = demand;
+      this.x = x;
+      this.y = y;
+    }
+
+    @Override
+    public String toString() {
+      return "{" + "\"demand\": " + demand + ", \"x\": " + x + ", \"y\": " + y + '}';
+    }
+  }
+}
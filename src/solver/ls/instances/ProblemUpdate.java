@@ -0,0 +1,27 @@
+package solver.ls.instances;
+
+/**
+ * Result of applying an {@link InstanceDelta}: the updated problem and how customers of the
+ * previous problem map onto it.
+ */
+public class ProblemUpdate {
+
+  public final VRPProblem previousProblem;
+  public final VRPProblem problem;
+  /**
+   * Index in the updated problem of every customer of the previous problem, -1 if removed.
+   */
+  public final int[] customerMap;
+  /**
+   * Indices in the updated problem of the added customers, in the order they were added.
+   */
+  public final int[] addedCustomers;
+
+  ProblemUpdate(VRPProblem previousProblem, VRPProblem problem, int[] customerMap,
+      int[] addedCustomers) {
+    this.previousProblem = previousProblem;
+    this.problem = problem;
+    this.customerMap = customerMap;
+    this.addedCustomers = addedCustomers;
+  }
+}
@@ -0,0 +1,127 @@
+package solver.ls.instances;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import solver.ls.data.Route;
+import solver.ls.data.RouteList;
+
+/**
+ * Continues the search after the problem changed, instead of solving the updated problem from
+ * scratch. The previous best solution is mapped onto the updated problem and repaired, and the
+ * solver starts from there.
+ */
+public class Reoptimization {
+
+  private Reoptimization() {
+  }
+
+  /**
+   * Builds a solver for the updated problem that starts from the repaired previous solution. Run
+   * it with {@link VRPInstanceSLS#solve(double)}, usually with a much shorter budget than a cold
+   * start.
+   *
+   * @param update         the applied delta.
+   * @param previousBest   best solution of the previous problem.
+   * @param params         solver parameters.
+   * @param executorOrNull executor to share, or null to let the solver create its own.
+   * @param handle         handle to cancel the search and to listen to improvements.
+   */
+  public static VRPInstanceSLS resume(ProblemUpdate update, RouteList previousBest,
+      SLSParams params, ExecutorService executorOrNull, SearchHandle handle) {
+    VRPInstanceSLS instance = new VRPInstanceSLS(update.problem, params, executorOrNull, handle);
+    instance.start(instance.createRouteList(repair(update, previousBest)));
+    return instance;
+  }
+
+  /**
+   * Maps the previous solution onto the updated problem: drops removed customers, inserts added
+   * ones at their cheapest position and moves customers out of routes that no longer fit.
+   *
+   * @return routes of the updated problem, each starting and ending at the depot.
+   */
+  public static List<List<Integer>> repair(ProblemUpdate update, RouteList previousBest) {
+    VRPProblem problem = update.problem;
+    List<List<Integer>> routes = new ArrayList<>();
+    int[] load = new int[problem.numVehicles];
+
+    // Map the previous routes onto the new customer indices.
+    for (Route route : previousBest.routes) {
+      List<Integer> mapped = new ArrayList<>();
+      mapped.add(0);
+      for (int i = 1; i < route.length - 1; i++) {
+        int customer = update.customerMap[route.customers[i]];
+        if (customer > 0) {
+          mapped.add(customer);
+          load[routes.size()] += problem.demandOfCustomer[customer];
+        }
+      }
+      mapped.add(0);
+      routes.add(mapped);
+    }
+
+    // Move customers out of overloaded routes, largest demand first.
+    List<Integer> unassigned = new ArrayList<>();
+    for (int r = 0; r < routes.size(); r++) {
+      List<Integer> route = routes.get(r);
+      while (load[r] > problem.vehicleCapacity) {
+        int largest = 1;
+        for (int i = 2; i < route.size() - 1; i++) {
+          if (problem.demandOfCustomer[route.get(i)] > problem.demandOfCustomer[route.get(
+              largest)]) {
+            largest = i;
+          }
+        }
+        int customer = route.remove(largest);
+        load[r] -= problem.demandOfCustomer[customer];
+        unassigned.add(customer);
+      }
+    }
+    for (int customer : update.addedCustomers) {
+      unassigned.add(customer);
+    }
+    unassigned.sort((a, b) -> problem.demandOfCustomer[b] - problem.demandOfCustomer[a]);
+
+    for (int customer : unassigned) {
+      insertCheapest(problem, routes, load, customer);
+    }
+
+    return routes;
+  }
+
+  /**
+   * Inserts a customer where it adds the least distance, preferring positions that keep the route
+   * within capacity. If no route has room left, the search is left to restore feasibility.
+   */
+  private static void insertCheapest(VRPProblem problem, List<List<Integer>> routes, int[] load,
+      int customer) {
+    int demand = problem.demandOfCustomer[customer];
+    double[] row = problem.distances[customer];
+    int bestRoute = -1;
+    int bestPosition = -1;
+    double bestCost = Double.POSITIVE_INFINITY;
+    boolean bestFeasible = false;
+
+    for (int r = 0; r < routes.size(); r++) {
+      boolean feasible = load[r] + demand <= problem.vehicleCapacity;
+      if (bestFeasible && !feasible) {
+        continue;
+      }
+      List<Integer> route = routes.get(r);
+      for (int i = 1; i < route.size(); i++) {
+        int previous = route.get(i - 1);
+        int next = route.get(i);
+        double cost = row[previous] + row[next] - problem.distances[previous][next];
+        if ((feasible && !bestFeasible) || cost < bestCost) {
+          bestRoute = r;
+          bestPosition = i;
+          bestCost = cost;
+          bestFeasible = feasible;
+        }
+      }
+    }
+
+    routes.get(bestRoute).add(bestPosition, customer);
+    load[bestRoute] += demand;
+  }
+}
@@ -0,0 +1,138 @@
+package solver.ls.instances;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import solver.ls.backend.MipBackend;
+import solver.ls.backend.MipBackends;
+import solver.ls.data.RouteList;
+import solver.ls.operators.RoutePool;
+import solver.ls.operators.RoutePool.PooledRoute;
+import solver.ls.operators.SetPartitioning;
+import solver.ls.utils.Verbosity;
+
+/**
+ * Recombines the routes of the incumbents found so far: a background thread periodically solves
+ * a set-partitioning problem over the route pool and hands shorter solutions back to the search.
+ * The problem is solved with the MIP backend if there is one, and with a time-limited
+ * branch-and-bound otherwise.
+ */
+class RouteRecombination implements AutoCloseable {
+
+  private final VRPInstanceSLS instance;
+  private final SLSParams params;
+  private final RoutePool pool;
+  private final SetPartitioning fallback;
+  private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+      runnable -> {
+        Thread thread = new Thread(runnable, "route-recombination");
+        thread.setDaemon(true);
+        return thread;
+      });
+  /**
+   * Recombined solution the search has not picked up yet.
+   */
+  private final AtomicReference<List<List<Integer>>> pending = new AtomicReference<>();
+  /**
+   * Length of the latest recorded incumbent, which a recombination has to beat.
+   */
+  private volatile double incumbentLength = Double.POSITIVE_INFINITY;
+  /**
+   * MIP backend, or null if there is none or it failed, in which case the fallback is used from
+   * then on.
+   */
+  private volatile MipBackend backend = MipBackends.find();
+  /**
+   * Number of routes in the pool at the last recombination.
+   */
+  private int lastPoolSize = 0;
+
+  RouteRecombination(VRPInstanceSLS instance, SLSParams params) {
+    this.instance = instance;
+    this.params = params;
+    this.pool = new RoutePool(params.routePoolCapacity, instance.demandOfCustomer,
+        instance.vehicleCapacity);
+    this.fallback = new SetPartitioning(instance.customers, instance.numCustomers,
+        instance.numVehicles);
+  }
+
+  /**
+   * Starts recombining periodically.
+   */
+  void start() {
+    long interval = (long) (params.recombinationInterval * 1000);
+    scheduler.scheduleWithFixedDelay(this::recombine, interval, interval, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Adds the routes of a feasible incumbent to the pool.
+   *
+   * @param incumbent incumbent with normalized length.
+   */
+  void record(RouteList incumbent) {
+    pool.addAll(incumbent, instance.distances);
+    incumbentLength = incumbent.length;
+  }
+
+  /**
+   * Takes the latest recombined solution, if any.
+   *
+   * @return routes of the solution, or null.
+   */
+  List<List<Integer>> poll() {
+    return pending.getAndSet(null);
+  }
+
+  private void recombine() {
+    List<PooledRoute> routes = pool.snapshot();
+    double upperBound = incumbentLength;
+    // Without new routes the result would be the same.
+    if (routes.size() == lastPoolSize || Double.isInfinite(upperBound)) {
+      return;
+    }
+    lastPoolSize = routes.size();
+
+    long start = System.nanoTime();
+    int[] chosen = null;
+    if (backend != null) {
+      try {
+        chosen = backend.partitionRoutes(routes, instance.customers, instance.numVehicles,
+            upperBound, params.recombinationTimeLimit);
+      } catch (RuntimeException | LinkageError e) {
+        if (params.verbosity.atLeast(Verbosity.VERBOSE)) {
+          System.out.println("Recombining without " + backend.name() + ": " + e);
+        }
+        backend = null;
+      }
+    }
+    if (backend == null) {
+      chosen = fallback.solve(routes, upperBound,
+          start + (long) (params.recombinationTimeLimit * 1e9));
+    }
+    if (chosen == null) {
+      return;
+    }
+
+    List<List<Integer>> solution = new ArrayList<>();
+    for (int r : chosen) {
+      List<Integer> route = new ArrayList<>();
+      for (int customer : routes.get(r).customers) {
+        route.add(customer);
+      }
+      solution.add(route);
+    }
+    pending.set(solution);
+    if (params.verbosity.atLeast(Verbosity.VERBOSE)) {
+      System.out.println("Recombined " + routes.size() + " routes in "
+          + String.format("%.2f", (System.nanoTime() - start) / 1e9) + " s");
+    }
+  }
+
+  @Override
+  public void close() {
+    scheduler.shutdownNow();
+  }
+}
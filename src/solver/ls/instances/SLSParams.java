@@ -1,5 +1,7 @@
 package solver.ls.instances;
 
+import solver.ls.utils.Verbosity;
+
 public class SLSParams {
 
   /**
@@ -11,25 +13,21 @@ public class SLSParams {
    */
   public final double maximumTabuTenureMultiplier = 1.2;
   /**
-   * Timeout to optimize the solution (seconds).
+   * Timeout to optimize the order of customers within routes, per optimization (seconds).
    */
   public final double optimizationTimeout = 1;
-  /**
-   * Allowed solution time (seconds).
-   */
-  public final double instanceTimeout = 300;
   /**
    * Increase greediness by grabbing the first solution that is better than the incumbent.
    */
   public final boolean firstBestFirst = false;
   /**
-   * Randomly optimizes the incumbent with some chance.
+   * Chance of optimizing the order of all routes of a new incumbent.
    */
-  public final double optimizationChance = 0.0;
+  public final double optimizationChance = 1.0;
   /**
-   * Randomly optimizes the current route list with some chance.
+   * Chance of optimizing the order of the two routes changed by a move.
    */
-  public final double randomOptimizationChance = 0.0;
+  public final double randomOptimizationChance = 0.5;
   /**
    * How many feasible/infeasible assignments we should have to start changing the EC penalty.
    */
@@ -91,6 +89,10 @@ public class SLSParams {
    * Base number of tries for 2-interchanges.
    */
   public final int largeNeighborhoodBaseSize = 500;
+  /**
+   * Longest segment exchanged by CROSS exchange.
+   */
+  public final int crossExchangeMaxSegmentLength = 3;
   /**
    * Number of stale incumbent iterations before the restart.
    */
@@ -99,6 +101,135 @@ public class SLSParams {
    * Restart threshold multiplier.
    */
   public final double restartThresholdMultiplier = 1.25;
+  /**
+   * Share of the customers removed by ruin-and-recreate.
+   */
+  public final double ruinFraction = 0.15;
+  /**
+   * Fewest customers removed by ruin-and-recreate.
+   */
+  public final int ruinMinCustomers = 5;
+  /**
+   * Most customers removed by ruin-and-recreate.
+   */
+  public final int ruinMaxCustomers = 100;
+  /**
+   * Chance of restarting from a ruined and recreated incumbent instead of a fresh packing.
+   */
+  public final double ruinRestartChance = 0.75;
+  /**
+   * Number of solutions kept in the elite pool.
+   */
+  public final int elitePoolSize = 8;
+  /**
+   * Smallest route-assignment distance between elite solutions, as a share of the customers.
+   */
+  public final double eliteMinDistance = 0.05;
+  /**
+   * Chance of restarting from a path between two elite solutions, if the pool has two.
+   */
+  public final double pathRelinkingRestartChance = 0.5;
+  /**
+   * Most routes kept for recombination.
+   */
+  public final int routePoolCapacity = 20000;
+  /**
+   * Time between two recombinations of the route pool (seconds).
+   */
+  public final double recombinationInterval = 10;
+  /**
+   * Time limit of a single recombination (seconds).
+   */
+  public final double recombinationTimeLimit = 2;
+  /**
+   * Most routes re-solved together as a MIP.
+   */
+  public final int subproblemMaxRoutes = 3;
+  /**
+   * Most customers of a re-solved group of routes.
+   */
+  public final int subproblemMaxCustomers = 30;
+  /**
+   * Time limit of a single route group MIP (seconds).
+   */
+  public final double subproblemTimeLimit = 1;
+  /**
+   * Time the local search runs before the exact model takes over (seconds).
+   */
+  public final double mipStartSearchTime = 10;
+  /**
+   * Most optimal short-route orders kept in the cache.
+   */
+  public final int shortRouteCacheCapacity = 100000;
+  /**
+   * Number of pre-generated restart solutions to keep ready.
+   */
+  public final int restartQueueCapacity = 2;
+  /**
+   * Chance of restarting from the warm start solution instead of a fresh packing.
+   */
+  public final double warmStartRestartChance = 0.25;
+  /**
+   * Number of routes in every cluster of the decomposition.
+   */
+  public final int decompositionRoutesPerCluster = 8;
+  /**
+   * Time to search the clusters for in every decomposition round (seconds).
+   */
+  public final double decompositionRoundTime = 5;
+  /**
+   * Allowed solution time (seconds).
+   */
+  public double instanceTimeout = 300;
+  /**
+   * Number of threads to evaluate neighborhoods with.
+   */
+  public int numThreads = 16;
+  /**
+   * Solution file to warm start from, or null to construct the initial solution from scratch.
+   */
+  public String warmStartFile = null;
+  /**
+   * Also use the warm start solution as an elite restart point.
+   */
+  public boolean warmStartRestarts = false;
+  /**
+   * How much to print while loading and solving the instance.
+   */
+  public Verbosity verbosity = Verbosity.NORMAL;
+  /**
+   * Load the preprocessed instance from a binary cache next to the input, if it is up to date.
+   */
+  public boolean useInstanceCache = true;
+  /**
+   * Pre-generate restart solutions on a spare thread while the search is running.
+   */
+  public boolean backgroundRestarts = true;
+  /**
+   * Number of customers above which the search is decomposed into clusters of routes.
+   */
+  public int decompositionThreshold = 2000;
+  /**
+   * Compute a lower bound on a separate thread while searching.
+   */
+  public boolean computeLowerBound = false;
+  /**
+   * Relative gap to the lower bound at which the search stops.
+   */
+  public double gapTolerance = 0.01;
+  /**
+   * Recombine the routes of the incumbents by set partitioning on a background thread.
+   */
+  public boolean routeRecombination = true;
+  /**
+   * Spare threads re-solving groups of neighboring routes as MIPs, 0 to disable. Off by default,
+   * since the search threads alone can already occupy every core.
+   */
+  public int subproblemThreads = 0;
+  /**
+   * Finish with the exact model, started from the local search solution.
+   */
+  public boolean exactSolve = false;
   /**
    * Random move minimum chance.
    */
@@ -114,4 +245,23 @@ public class SLSParams {
 
   public SLSParams() {
   }
+
+  /**
+   * Copies the run options of the given parameters.
+   */
+  public SLSParams(SLSParams other) {
+    instanceTimeout = other.instanceTimeout;
+    numThreads = other.numThreads;
+    warmStartFile = other.warmStartFile;
+    warmStartRestarts = other.warmStartRestarts;
+    verbosity = other.verbosity;
+    useInstanceCache = other.useInstanceCache;
+    backgroundRestarts = other.backgroundRestarts;
+    decompositionThreshold = other.decompositionThreshold;
+    computeLowerBound = other.computeLowerBound;
+    gapTolerance = other.gapTolerance;
+    routeRecombination = other.routeRecombination;
+    subproblemThreads = other.subproblemThreads;
+    exactSolve = other.exactSolve;
+  }
 }
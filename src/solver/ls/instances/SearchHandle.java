@@ -0,0 +1,148 @@
+package solver.ls.instances;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import solver.ls.listeners.IncumbentEvent;
+import solver.ls.listeners.IncumbentListener;
+
+/**
+ * Lets other threads follow and cancel a running search. Improvements are handed to the
+ * listeners on a separate dispatcher thread, so the search thread never waits for them.
+ */
+public class SearchHandle {
+
+  private final List<IncumbentListener> listeners = new CopyOnWriteArrayList<>();
+  private volatile boolean cancelled = false;
+  private volatile IncumbentEvent latest = null;
+  private volatile double lowerBound = 0;
+  private ExecutorService dispatcher;
+
+  public void cancel() {
+    cancelled = true;
+  }
+
+  public boolean isCancelled() {
+    return cancelled;
+  }
+
+  public void addListener(IncumbentListener listener) {
+    listeners.add(listener);
+  }
+
+  public void removeListener(IncumbentListener listener) {
+    listeners.remove(listener);
+  }
+
+  /**
+   * Reports a lower bound on the optimal tour length, in the original units. Weaker bounds than
+   * the current one are ignored.
+   */
+  public synchronized void setLowerBound(double bound) {
+    lowerBound = Math.max(lowerBound, bound);
+  }
+
+  /**
+   * Best known lower bound on the optimal tour length, or 0 if there is none.
+   */
+  public double lowerBound() {
+    return lowerBound;
+  }
+
+  /**
+   * Relative gap between a tour length and the lower bound, infinite without a bound.
+   */
+  public double gap(double length) {
+    if (lowerBound <= 0 || Double.isInfinite(length)) {
+      return Double.POSITIVE_INFINITY;
+    }
+    return Math.max(0, (length - lowerBound) / length);
+  }
+
+  /**
+   * Whether the lower bound proves a tour length optimal.
+   */
+  public boolean provesOptimal(double length) {
+    return gap(length) <= 1e-9;
+  }
+
+  /**
+   * Whether anyone needs events, so that the search can skip taking snapshots.
+   */
+  boolean hasListeners() {
+    return !listeners.isEmpty();
+  }
+
+  /**
+   * Latest best incumbent reported by the search, or null if there is none yet.
+   */
+  public IncumbentEvent latest() {
+    return latest;
+  }
+
+  synchronized void publish(IncumbentEvent event) {
+    if (event.kind == IncumbentEvent.Kind.BEST_INCUMBENT) {
+      latest = event;
+    }
+    if (listeners.isEmpty()) {
+      return;
+    }
+    if (dispatcher == null) {
+      dispatcher = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "incumbent-dispatcher");
+        thread.setDaemon(true);
+        return thread;
+      });
+    }
+    dispatcher.execute(() -> {
+      for (IncumbentListener listener : listeners) {
+        try {
+          listener.onImprovement(event);
+        } catch (RuntimeException e) {
+          System.err.println("Incumbent listener failed: " + e);
+        }
+      }
+    });
+  }
+
+  /**
+   * Waits until all published events have been delivered.
+   */
+  void flush() {
+    ExecutorService current;
+    synchronized (this) {
+      current = dispatcher;
+    }
+    if (current == null) {
+      return;
+    }
+    try {
+      current.submit(() -> {
+      }).get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (ExecutionException | RejectedExecutionException e) {
+      // The dispatcher was closed concurrently, nothing is left to deliver.
+    }
+  }
+
+  /**
+   * Delivers the remaining events and stops the dispatcher thread. Later events start a new one.
+   */
+  synchronized void close() {
+    if (dispatcher == null) {
+      return;
+    }
+    dispatcher.shutdown();
+    try {
+      dispatcher.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    dispatcher = null;
+  }
+}
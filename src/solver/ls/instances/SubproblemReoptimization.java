@@ -0,0 +1,272 @@
+package solver.ls.instances;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import solver.ls.backend.ExactSolution;
+import solver.ls.backend.MipBackend;
+import solver.ls.backend.MipBackends;
+import solver.ls.data.Route;
+import solver.ls.data.RouteList;
+import solver.ls.utils.Verbosity;
+
+/**
+ * Re-solves small groups of neighboring routes of the incumbent exactly with the MIP backend, on
+ * spare threads. Improved groups are merged back into the
+ * incumbent as long as it still contains the original routes.
+ */
+class SubproblemReoptimization implements AutoCloseable {
+
+  private final VRPInstanceSLS instance;
+  private final SLSParams params;
+  private final ExecutorService workers;
+  private final AtomicInteger running = new AtomicInteger();
+  private final Queue<Result> results = new ConcurrentLinkedQueue<>();
+  /**
+   * Chooses the routes; separate from the search's generator so the search stays reproducible.
+   */
+  private final Random rand;
+  private final MipBackend backend = MipBackends.find();
+  /**
+   * Whether there is no MIP backend or it failed to run, in which case nothing is submitted
+   * anymore.
+   */
+  private volatile boolean unavailable = backend == null;
+
+  SubproblemReoptimization(VRPInstanceSLS instance, SLSParams params, long seed) {
+    this.instance = instance;
+    this.params = params;
+    this.rand = new Random(seed);
+    this.workers = Executors.newFixedThreadPool(Math.max(1, params.subproblemThreads),
+        runnable -> {
+          Thread thread = new Thread(runnable, "subproblem-mip");
+          thread.setDaemon(true);
+          return thread;
+        });
+  }
+
+  /**
+   * Whether a spare thread is free for another subproblem.
+   */
+  boolean hasCapacity() {
+    return !unavailable && running.get() < params.subproblemThreads;
+  }
+
+  /**
+   * Picks a random route and its nearest routes from the incumbent and re-solves them.
+   *
+   * @param incumbent feasible incumbent with normalized length; not modified.
+   */
+  void submit(RouteList incumbent) {
+    List<Route> group = pickGroup(incumbent);
+    if (group.size() < 2) {
+      return;
+    }
+    running.incrementAndGet();
+    workers.execute(() -> {
+      try {
+        Result result = solve(group);
+        if (result != null) {
+          results.add(result);
+        }
+      } finally {
+        running.decrementAndGet();
+      }
+    });
+  }
+
+  /**
+   * Merges the improved groups that still match the incumbent.
+   *
+   * @param incumbent current incumbent; not modified.
+   * @return the improved incumbent, or null if no improvement applies.
+   */
+  RouteList poll(RouteList incumbent) {
+    List<List<Integer>> routes = null;
+    Result result;
+    while ((result = results.poll()) != null) {
+      List<List<Integer>> current = routes != null ? routes : toLists(incumbent);
+      List<List<Integer>> merged = merge(current, result);
+      if (merged != null) {
+        routes = merged;
+      }
+    }
+    if (routes == null) {
+      return null;
+    }
+    RouteList improved = instance.createRouteList(routes);
+    return improved.length < incumbent.length ? improved : null;
+  }
+
+  /**
+   * A random non-empty route and the routes with the nearest centroids, within the size limits.
+   */
+  private List<Route> pickGroup(RouteList incumbent) {
+    List<Route> used = new ArrayList<>();
+    for (Route route : incumbent.routes) {
+      if (route.length > 2) {
+        used.add(route);
+      }
+    }
+    List<Route> group = new ArrayList<>();
+    if (used.size() < 2) {
+      return group;
+    }
+    Route seed = used.get(rand.nextInt(used.size()));
+    double[] seedCentroid = centroid(seed);
+    used.sort(Comparator.comparingDouble(route -> {
+      double[] c = centroid(route);
+      return Math.hypot(c[0] - seedCentroid[0], c[1] - seedCentroid[1]);
+    }));
+
+    // The seed itself comes first.
+    int numCustomers = 0;
+    for (Route route : used) {
+      if (group.size() == params.subproblemMaxRoutes) {
+        break;
+      }
+      if (numCustomers + route.length - 2 <= params.subproblemMaxCustomers) {
+        group.add(route);
+        numCustomers += route.length - 2;
+      }
+    }
+    return group;
+  }
+
+  private double[] centroid(Route route) {
+    double x = 0;
+    double y = 0;
+    for (int i = 1; i < route.length - 1; i++) {
+      x += instance.xCoordOfCustomer[route.customers[i]];
+      y += instance.yCoordOfCustomer[route.customers[i]];
+    }
+    return new double[]{x / (route.length - 2), y / (route.length - 2)};
+  }
+
+  /**
+   * Solves the group of routes as a standalone problem.
+   *
+   * @return the shorter routes, or null if the solver found none.
+   */
+  private Result solve(List<Route> group) {
+    List<Integer> customerList = new ArrayList<>();
+    List<BitSet> original = new ArrayList<>();
+    double originalLength = 0;
+    for (Route route : group) {
+      BitSet key = new BitSet();
+      for (int i = 1; i < route.length - 1; i++) {
+        customerList.add(route.customers[i]);
+        key.set(route.customers[i]);
+      }
+      original.add(key);
+      originalLength += route.calculateRouteLength(instance.distances);
+    }
+    int[] customers = customerList.stream().mapToInt(Integer::intValue).toArray();
+
+    ExactSolution ip;
+    try {
+      ip = backend.solve(instance.problem.compact(customers, group.size()), null,
+          params.subproblemTimeLimit, 1, true);
+    } catch (IllegalArgumentException e) {
+      // No solution within the time limit.
+      return null;
+    } catch (RuntimeException | LinkageError e) {
+      unavailable = true;
+      if (params.verbosity.atLeast(Verbosity.VERBOSE)) {
+        System.out.println("Subproblem re-optimization unavailable: " + e);
+      }
+      return null;
+    }
+    if (ip.routes == null || ip.objective >= originalLength - 1e-6) {
+      return null;
+    }
+
+    // Map the customers of the standalone problem back.
+    List<List<Integer>> routes = new ArrayList<>();
+    for (List<Integer> route : ip.routes) {
+      List<Integer> mapped = new ArrayList<>();
+      for (int customer : route) {
+        mapped.add(customer == 0 ? 0 : customers[customer - 1]);
+      }
+      routes.add(mapped);
+    }
+    return new Result(original, routes);
+  }
+
+  /**
+   * Replaces the original routes of a result in the given solution.
+   *
+   * @return the merged routes, or null if the solution no longer contains the original routes.
+   */
+  private static List<List<Integer>> merge(List<List<Integer>> solution, Result result) {
+    List<Integer> slots = new ArrayList<>();
+    for (BitSet key : result.original) {
+      int slot = -1;
+      for (int r = 0; r < solution.size() && slot < 0; r++) {
+        if (!slots.contains(r) && key.equals(customerSet(solution.get(r)))) {
+          slot = r;
+        }
+      }
+      if (slot < 0) {
+        return null;
+      }
+      slots.add(slot);
+    }
+
+    List<List<Integer>> merged = new ArrayList<>(solution);
+    for (int i = 0; i < slots.size(); i++) {
+      // Groups solved with fewer routes leave vehicles at the depot.
+      merged.set(slots.get(i), i < result.routes.size() ? result.routes.get(i) : List.of(0, 0));
+    }
+    return merged;
+  }
+
+  private static BitSet customerSet(List<Integer> route) {
+    BitSet key = new BitSet();
+    for (int i = 1; i < route.size() - 1; i++) {
+      key.set(route.get(i));
+    }
+    return key;
+  }
+
+  private static List<List<Integer>> toLists(RouteList routeList) {
+    List<List<Integer>> routes = new ArrayList<>();
+    for (Route route : routeList.routes) {
+      List<Integer> customers = new ArrayList<>();
+      for (int i = 0; i < route.length; i++) {
+        customers.add(route.customers[i]);
+      }
+      routes.add(customers);
+    }
+    return routes;
+  }
+
+  @Override
+  public void close() {
+    workers.shutdownNow();
+  }
+
+  private static class Result {
+
+    /**
+     * Customer sets of the routes that were re-solved.
+     */
+    final List<BitSet> original;
+    /**
+     * The shorter routes replacing them.
+     */
+    final List<List<Integer>> routes;
+
+    Result(List<BitSet> original, List<List<Integer>> routes) {
+      this.original = original;
+      this.routes = routes;
+    }
+  }
+}
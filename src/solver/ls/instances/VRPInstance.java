@@ -1,11 +1,13 @@
 package solver.ls.instances;
 
-import java.io.File;
-import java.io.FileNotFoundException;
-import java.util.Scanner;
+import java.io.IOException;
+import solver.ls.utils.Verbosity;
 
 public abstract class VRPInstance {
 
+  // Problem the instance is built on.
+  public final VRPProblem problem;
+
   // VRP Input Parameters
   public int numCustomers;                 // the number of customers
   public int numVehicles;                  // the number of vehicles
@@ -16,82 +18,39 @@ public abstract class VRPInstance {
   public double[][] distances;             // distances between all customers
   public double[][] originalDistances;     // original distances between all customers
   public double normCoefficient;           // normalization coefficient
+  public int[][] neighborLists;            // nearest customers of each customer, closest first
+  public double loadTime;                  // time to parse and preprocess the instance (seconds)
+  public int[] customers;                  // customers to serve, without the depot
 
 
   protected VRPInstance(String fileName) {
-    Scanner read = null;
-    try {
-      read = new Scanner(new File(fileName));
-    } catch (FileNotFoundException e) {
-      System.out.println("Error: in VRPInstance() " + fileName + "\n" + e.getMessage());
-      System.exit(-1);
-    }
-
-    numCustomers = read.nextInt();
-    numVehicles = read.nextInt();
-    vehicleCapacity = read.nextInt();
-
-    System.out.println("Number of customers: " + numCustomers);
-    System.out.println("Number of vehicles: " + numVehicles);
-    System.out.println("Vehicle capacity: " + vehicleCapacity);
-
-    demandOfCustomer = new int[numCustomers];
-    xCoordOfCustomer = new double[numCustomers];
-    yCoordOfCustomer = new double[numCustomers];
-
-    // all customers but the depot
-    for (int i = 0; i < numCustomers; i++) {
-      demandOfCustomer[i] = read.nextInt();
-      xCoordOfCustomer[i] = read.nextDouble();
-      yCoordOfCustomer[i] = read.nextDouble();
-    }
-
-    System.out.println("Parsed data (demand, x, y): ");
-    for (int i = 0; i < numCustomers; i++) {
-      System.out.println(
-          demandOfCustomer[i] + " " + xCoordOfCustomer[i] + " " + yCoordOfCustomer[i]);
-    }
-
-    originalDistances = getDistances();
-    distances = getDistances();
-    normalizeDistances(distances);
-  }
-
-  private static double distance(double x1, double x2, double y1, double y2) {
-    return Math.sqrt(Math.pow((x1 - x2), 2) + Math.pow((y1 - y2), 2));
+    this(load(fileName));
   }
 
-  private double[][] getDistances() {
-    double[][] distances = new double[numCustomers][numCustomers];
-
-    // Calculate distances.
-    for (int i = 0; i < numCustomers; i++) {
-      for (int j = 0; j < numCustomers; j++) {
-        distances[i][j] = distance(xCoordOfCustomer[i], xCoordOfCustomer[j], yCoordOfCustomer[i],
-            yCoordOfCustomer[j]);
-      }
-    }
-
-    return distances;
+  protected VRPInstance(VRPProblem problem) {
+    this.problem = problem;
+    numCustomers = problem.numCustomers;
+    numVehicles = problem.numVehicles;
+    vehicleCapacity = problem.vehicleCapacity;
+    demandOfCustomer = problem.demandOfCustomer;
+    xCoordOfCustomer = problem.xCoordOfCustomer;
+    yCoordOfCustomer = problem.yCoordOfCustomer;
+    distances = problem.distances;
+    originalDistances = problem.originalDistances;
+    normCoefficient = problem.normCoefficient;
+    neighborLists = problem.neighborLists;
+    loadTime = problem.loadTime;
+    customers = problem.customers;
   }
 
-  private void normalizeDistances(double[][] distances) {
-    double maxDistance = 0;
-    for (int i = 0; i < numCustomers; i++) {
-      for (int j = 0; j < numCustomers; j++) {
-        if (maxDistance < distances[i][j]) {
-          maxDistance = distances[i][j];
-        }
-      }
-    }
-
-    normCoefficient = 100.0 / maxDistance;
-
-    for (int i = 0; i < numCustomers; i++) {
-      for (int j = 0; j < numCustomers; j++) {
-        distances[i][j] *= normCoefficient;
-      }
+  private static VRPProblem load(String fileName) {
+    try {
+      return VRPProblem.load(fileName, Verbosity.NORMAL, false);
+    } catch (IOException e) {
+      System.out.println("Error: in VRPInstance() " + fileName + "\n" + e.getMessage());
+      System.exit(-1);
+      return null;
     }
   }
 
-}
\ No newline at end of file
+}
@@ -3,18 +3,21 @@ package solver.ls.instances;
 import static solver.ls.interchanges.BestRandom2ICalculator.populateRandom2I;
 import static solver.ls.interchanges.BestRandom2ICalculator.randIntBetween;
 
-import ilog.concert.IloException;
-import ilog.concert.IloLinearNumExpr;
-import ilog.concert.IloNumVar;
-import ilog.cplex.IloCplex;
-import ilog.cplex.IloCplex.Param;
+import java.io.File;
+import java.io.FileNotFoundException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
+import java.util.Scanner;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+import solver.ls.backend.MipBackend;
+import solver.ls.backend.MipBackends;
 import solver.ls.data.Insertion;
 import solver.ls.data.Interchange;
 import solver.ls.data.InterchangeResult;
@@ -23,12 +26,24 @@ import solver.ls.data.RouteList;
 import solver.ls.data.TabuItem;
 import solver.ls.interchanges.Best0ICalculator;
 import solver.ls.interchanges.Best1ICalculator;
+import solver.ls.interchanges.Best2OptStarCalculator;
+import solver.ls.interchanges.BestCrossExchangeCalculator;
 import solver.ls.interchanges.BestRandom2ICalculator;
 import solver.ls.interchanges.InterchangeCalculator;
 import solver.ls.interchanges.InterchangePerRoute;
+import solver.ls.listeners.IncumbentEvent;
+import solver.ls.listeners.IncumbentEvent.Kind;
+import solver.ls.listeners.IncumbentListener;
+import solver.ls.operators.ElitePool;
+import solver.ls.operators.PathRelinking;
+import solver.ls.operators.RouteOptimizer;
+import solver.ls.operators.RuinAndRecreate;
+import solver.ls.operators.ShortRouteCache;
+import solver.ls.packing.FirstFitPacking;
 import solver.ls.utils.Timer;
+import solver.ls.utils.Verbosity;
 
-public class VRPInstanceSLS extends VRPInstance {
+public class VRPInstanceSLS extends VRPInstance implements AutoCloseable {
 
   /**
    * Solver parameters.
@@ -47,13 +62,89 @@ public class VRPInstanceSLS extends VRPInstance {
    */
   private final Random rand;
   /**
-   * Current timer, to stop the iteration once allowed time elapses.
+   * Timer started with the solver, to stop the iteration once allowed time elapses.
    */
   private final Timer watch;
+  /**
+   * Handle through which other threads follow and cancel the search.
+   */
+  private final SearchHandle handle;
   /**
    * Thread pool to perform neighborhood calculations.
    */
-  private final ExecutorService executor = Executors.newFixedThreadPool(16);
+  private final ExecutorService executor;
+  /**
+   * Whether the thread pool was created by (and should be shut down with) this solver.
+   */
+  private final boolean ownsExecutor;
+  /**
+   * Spare thread to generate restart solutions in the background.
+   */
+  private final ExecutorService restartExecutor = Executors.newSingleThreadExecutor(runnable -> {
+    Thread thread = new Thread(runnable, "restart-producer");
+    thread.setDaemon(true);
+    return thread;
+  });
+  /**
+   * Recombines the routes of the incumbents in the background.
+   */
+  private final RouteRecombination recombination;
+  /**
+   * Re-solves groups of neighboring incumbent routes exactly on spare threads.
+   */
+  private final SubproblemReoptimization subproblems;
+  /**
+   * Ready-to-use starting solutions for the upcoming restarts.
+   */
+  private final BlockingQueue<RouteList> restartSolutions;
+  /**
+   * Solution read from the warm start file, if any.
+   */
+  private RouteList warmStartSolution;
+  /**
+   * Solution to start the search from, if given explicitly.
+   */
+  private RouteList initialSolution;
+  /**
+   * Number of customers the solver serves, including the depot.
+   */
+  private final int problemSize;
+  /**
+   * Optimizes the order of customers within routes.
+   */
+  private final RouteOptimizer routeOptimizer;
+  /**
+   * Optimal orders of short routes, kept across iterations and restarts.
+   */
+  private final ShortRouteCache shortRoutes;
+  /**
+   * MIP backend for the initial packing, or null if there is none or it failed.
+   */
+  private volatile MipBackend packingBackend = MipBackends.find();
+  /**
+   * Rebuilds part of a solution for diversification and restarts.
+   */
+  private final RuinAndRecreate ruinAndRecreate;
+  /**
+   * Good, mutually different local optima found before restarts.
+   */
+  private final ElitePool elitePool;
+  /**
+   * Builds restart solutions between two elite solutions.
+   */
+  private final PathRelinking pathRelinking;
+  /**
+   * Route of every customer in the current solution, refreshed every iteration.
+   */
+  private final int[] routeOfCustomer;
+  /**
+   * Position of every customer within its route, refreshed every iteration.
+   */
+  private final int[] positionOfCustomer;
+  /**
+   * End of the current solve call on the solver's timer (seconds).
+   */
+  private double deadline = Double.POSITIVE_INFINITY;
   /**
    * Logging switch.
    */
@@ -74,6 +165,14 @@ public class VRPInstanceSLS extends VRPInstance {
    * Current iteration of SLS.
    */
   public int currentIteration = 0;
+  /**
+   * Time from the creation of the solver to the first search iteration (seconds).
+   */
+  public double timeToFirstIteration;
+  /**
+   * Time spent optimizing routes internally (seconds).
+   */
+  public double optimizationTime = 0;
   /**
    * Customer use penalty coefficient for long-term memory.
    */
@@ -107,266 +206,477 @@ public class VRPInstanceSLS extends VRPInstance {
    */
   private double randomMoveChance;
 
-  public VRPInstanceSLS(String fileName, Timer watch, SLSParams params) {
-    super(fileName);
+  public VRPInstanceSLS(VRPProblem problem, SLSParams params) {
+    this(problem, params, null, new SearchHandle());
+  }
+
+  /**
+   * Creates a solver without starting the search.
+   *
+   * @param problem  problem to solve.
+   * @param params   solver parameters.
+   * @param executor thread pool to evaluate neighborhoods on, shared with other solvers; if null,
+   *                 the solver creates its own pool of params.numThreads threads.
+   * @param handle   handle through which other threads follow and cancel the search.
+   */
+  public VRPInstanceSLS(VRPProblem problem, SLSParams params, ExecutorService executor,
+      SearchHandle handle) {
+    super(problem);
     // Copy parameters.
     this.params = params;
-    this.watch = watch;
+    this.handle = handle;
+    this.watch = new Timer();
+    watch.start();
     // Initialize helpers.
+    ownsExecutor = executor == null;
+    this.executor = ownsExecutor ? Executors.newFixedThreadPool(params.numThreads) : executor;
+    problemSize = customers.length + 1;
+    routeOptimizer = new RouteOptimizer(distances, neighborLists);
+    shortRoutes = new ShortRouteCache(distances, params.shortRouteCacheCapacity);
+    ruinAndRecreate = new RuinAndRecreate(distances, demandOfCustomer, vehicleCapacity);
+    elitePool = new ElitePool(params.elitePoolSize, params.eliteMinDistance, numCustomers);
+    pathRelinking = new PathRelinking(distances, demandOfCustomer, vehicleCapacity);
+    recombination = new RouteRecombination(this, params);
+    routeOfCustomer = new int[numCustomers];
+    positionOfCustomer = new int[numCustomers];
     shortTermMemory = new ArrayList<>();
     longTermMemory = new int[numCustomers];
     for (int i = 0; i < numCustomers; i++) {
       longTermMemory[i] = 0;
     }
     rand = new Random(29510);
+    subproblems = new SubproblemReoptimization(this, params, rand.nextLong());
+    restartSolutions = new ArrayBlockingQueue<>(params.restartQueueCapacity);
     // Instantiate coefficients.
     largeNeighborhoodSize = params.largeNeighborhoodBaseSize;
     excessCapacityPenaltyCoefficient = params.excessCapacityBasePenalty;
     customerUsePenaltyCoefficient = params.customerUseBasePenalty;
     restartThreshold = params.baseRestartThreshold;
     randomMoveChance = params.randomMoveMax;
-    // Generate the initial solution, initialize variables.
-    routeList = generateInitialSolution();
+  }
+
+  /**
+   * Generates the initial solution (or reads it from a file) on first use.
+   */
+  private void initialize() {
+    if (routeList != null) {
+      return;
+    }
+    if (params.warmStartFile != null) {
+      warmStartSolution = readSolution(params.warmStartFile);
+    }
+    if (initialSolution != null) {
+      routeList = initialSolution.clone();
+    } else if (warmStartSolution != null) {
+      routeList = warmStartSolution.clone();
+    } else {
+      routeList = generateInitialSolution(rand);
+    }
+    if (rand.nextDouble() < params.optimizationChance) {
+      optimizeRoutes(allRoutes());
+    }
     incumbent = routeList.clone();
-    bestIncumbent = routeList.clone();
+    if (calculateExcessCapacity(routeList) > 0) {
+      // Any feasible solution is better than an infeasible start.
+      incumbent.length = Double.POSITIVE_INFINITY;
+    }
+    bestIncumbent = incumbent.clone();
+    publishImprovement(Kind.BEST_INCUMBENT, bestIncumbent);
     objective = routeList.length;
+    // Start pre-generating restart solutions while the search is running.
+    if (params.backgroundRestarts) {
+      Random producerRand = new Random(rand.nextLong());
+      restartExecutor.submit(() -> produceRestartSolutions(producerRand));
+    }
+    if (params.routeRecombination) {
+      if (!Double.isInfinite(incumbent.length)) {
+        recombination.record(incumbent);
+      }
+      recombination.start();
+    }
     // Objective of the initial solution.
     if (enableLogging) {
       System.out.println("Initial objective: " + objective);
     }
-    // Perform search for a given number of iterations.
-    search();
+    timeToFirstIteration = watch.getTime();
+  }
+
+  /**
+   * Continues the search for the given time, or until the search is cancelled.
+   *
+   * @param budget time to search for (seconds).
+   * @return best solution found so far.
+   */
+  public RouteList solve(double budget) {
+    deadline = watch.getTime() + budget;
+    initialize();
+    while (watch.getTime() < deadline && !handle.isCancelled()
+        && handle.gap(bestIncumbent.length / normCoefficient) > params.gapTolerance) {
+      iterate();
+    }
+    handle.flush();
+    return bestSolution();
+  }
 
+  /**
+   * Performs the given number of search iterations, regardless of time.
+   *
+   * @param iterations number of iterations to perform.
+   */
+  public void step(int iterations) {
+    deadline = Double.POSITIVE_INFINITY;
+    initialize();
+    for (int i = 0; i < iterations && !handle.isCancelled(); i++) {
+      iterate();
+    }
+    handle.flush();
+  }
+
+  /**
+   * Solution the search is currently at, with normalized length.
+   */
+  public RouteList currentSolution() {
+    initialize();
+    return routeList.clone();
+  }
+
+  /**
+   * Best solution found so far, with its length in the original (not normalized) units. The
+   * length stays infinite while no feasible solution was found, the routes then overload a vehicle.
+   */
+  public RouteList bestSolution() {
+    initialize();
+    RouteList solution = bestIncumbent.clone();
+    if (Double.isInfinite(solution.length)) {
+      return solution;
+    }
     double distance = 0;
-    for (Route route : bestIncumbent.routes) {
+    for (Route route : solution.routes) {
       distance += route.calculateRouteLength(originalDistances);
     }
-    bestIncumbent.length = distance;
+    solution.length = distance;
+    return solution;
+  }
+
+  /**
+   * Handle through which other threads follow and cancel the search.
+   */
+  public SearchHandle handle() {
+    return handle;
+  }
 
-    // Shut down executor.
-    executor.shutdownNow();
+  public void addListener(IncumbentListener listener) {
+    handle.addListener(listener);
   }
 
   /**
-   * Interchanges 0 or 1 customers between routes to improve the current solution. In our case,
-   * \lambda = 1, so we consider swaps and shifts: (1, 1), (1, 0).
+   * Stops the background threads. The shared neighborhood pool, if any, is left running.
    */
-  private void search() {
+  @Override
+  public void close() {
+    if (ownsExecutor) {
+      executor.shutdownNow();
+    }
+    restartExecutor.shutdownNow();
+    recombination.close();
+    subproblems.close();
+    handle.close();
+  }
+
+  /**
+   * Reports an improved solution to the search handle and its listeners.
+   *
+   * @param kind      which of the incumbents improved.
+   * @param routeList the improved solution, with normalized length.
+   */
+  private void publishImprovement(Kind kind, RouteList routeList) {
+    if (Double.isInfinite(routeList.length)) {
+      // Nothing feasible to report yet.
+      return;
+    }
+    if (kind == Kind.BEST_INCUMBENT || handle.hasListeners()) {
+      handle.publish(new IncumbentEvent(kind, routeList.length / normCoefficient,
+          watch.getTime(), currentIteration, routeList));
+    }
+  }
+
+  /**
+   * Performs a single iteration: interchanges 0, 1 or 2 customers between routes to improve the
+   * current solution, then updates memories, penalties and restarts.
+   */
+  private void iterate() {
     Interchange best0Interchange;
     Interchange best1Interchange;
     Interchange best2Interchange;
+    Interchange best2OptStarInterchange;
+    Interchange bestCrossInterchange;
 
-    currentIteration = 0;
-
-    // Keep going for a fixed number of iterations.
-    while (watch.getTime() < params.instanceTimeout - 2 * params.optimizationTimeout) {
-      currentIteration++;
-      if (enableLogging) {
-        System.out.println("============ ITERATION #" + currentIteration + " ============");
-      }
+    currentIteration++;
+    if (enableLogging) {
+      System.out.println("============ ITERATION #" + currentIteration + " ============");
+    }
 
-      if (rand.nextDouble() < randomMoveChance) {
+    if (rand.nextDouble() < randomMoveChance) {
 
-        int n_suitable = 0;
-        for (Route route : routeList.routes) {
-          if (route.length >= 4) {
-            n_suitable++;
-          }
-          if (n_suitable >= 2) {
-            break;
-          }
+      int n_suitable = 0;
+      for (Route route : routeList.routes) {
+        if (route.length >= 4) {
+          n_suitable++;
         }
-        if (n_suitable < 2) {
-          continue;
+        if (n_suitable >= 2) {
+          break;
         }
+      }
+      if (n_suitable < 2) {
+        return;
+      }
 
-        int routeIdx1 = 0;
-        int routeIdx2 = 0;
+      int routeIdx1 = 0;
+      int routeIdx2 = 0;
 
-        while (routeIdx1 == routeIdx2 || routeList.routes[routeIdx1].length < 4 ||
-            routeList.routes[routeIdx2].length < 4) {
-          routeIdx1 = randIntBetween(rand, 0, routeList.routes.length);
-          routeIdx2 = randIntBetween(rand, 0, routeList.routes.length);
-        }
+      while (routeIdx1 == routeIdx2 || routeList.routes[routeIdx1].length < 4 ||
+          routeList.routes[routeIdx2].length < 4) {
+        routeIdx1 = randIntBetween(rand, 0, routeList.routes.length);
+        routeIdx2 = randIntBetween(rand, 0, routeList.routes.length);
+      }
 
-        Route route1 = routeList.routes[routeIdx1];
-        Route route2 = routeList.routes[routeIdx2];
+      Route route1 = routeList.routes[routeIdx1];
+      Route route2 = routeList.routes[routeIdx2];
 
-        Interchange interchange = new Interchange(
-            routeIdx1, new Insertion[]{new Insertion(0, 0), new Insertion(0, 0)},
-            routeIdx2, new Insertion[]{new Insertion(0, 0), new Insertion(0, 0)});
+      Interchange interchange = new Interchange(
+          routeIdx1, new Insertion[]{new Insertion(0, 0), new Insertion(0, 0)},
+          routeIdx2, new Insertion[]{new Insertion(0, 0), new Insertion(0, 0)});
 
-        populateRandom2I(interchange, route1, route2, rand);
+      populateRandom2I(interchange, route1, route2, rand);
 
-        if (enableLogging) {
-          System.out.println("============ RANDOM MOVE ============");
+      if (enableLogging) {
+        System.out.println("============ RANDOM MOVE ============");
+      }
+      double objective = routeList.objective(interchange, excessCapacityPenaltyCoefficient,
+          customerUsePenaltyCoefficient, currentIteration, enableLogging);
+      updateInterchange(interchange, objective);
+    } else {
+      // Calculate both best insertion and best swap.
+      best0Interchange = searchNeighborhood(
+          (routeIdx) -> new Best0ICalculator(routeList, incumbent,
+              excessCapacityPenaltyCoefficient, customerUsePenaltyCoefficient, currentIteration,
+              shortTermMemory, params.firstBestFirst, routeIdx));
+      best1Interchange = searchNeighborhood(
+          (routeIdx) -> new Best1ICalculator(routeList, incumbent,
+              excessCapacityPenaltyCoefficient, customerUsePenaltyCoefficient, currentIteration,
+              shortTermMemory, params.firstBestFirst, routeIdx));
+      best2Interchange = searchNeighborhood(
+          (routeIdx) -> new BestRandom2ICalculator(routeList, incumbent,
+              excessCapacityPenaltyCoefficient, customerUsePenaltyCoefficient, currentIteration,
+              shortTermMemory, params.firstBestFirst, routeIdx, largeNeighborhoodSize));
+      best2OptStarInterchange = searchNeighborhood(
+          (routeIdx) -> new Best2OptStarCalculator(routeList, incumbent,
+              excessCapacityPenaltyCoefficient, customerUsePenaltyCoefficient, currentIteration,
+              shortTermMemory, params.firstBestFirst, routeIdx));
+      routeList.locateCustomers(routeOfCustomer, positionOfCustomer);
+      bestCrossInterchange = searchNeighborhood(
+          (routeIdx) -> new BestCrossExchangeCalculator(routeList, incumbent,
+              excessCapacityPenaltyCoefficient, customerUsePenaltyCoefficient, currentIteration,
+              shortTermMemory, params.firstBestFirst, routeIdx,
+              params.crossExchangeMaxSegmentLength, distances, neighborLists, routeOfCustomer,
+              positionOfCustomer));
+
+      // Take the best move, preferring the earlier neighborhoods on ties.
+      Interchange bestInterchange = null;
+      double bestObjective = Double.POSITIVE_INFINITY;
+      for (Interchange candidate : new Interchange[]{best0Interchange, best1Interchange,
+          best2Interchange, best2OptStarInterchange, bestCrossInterchange}) {
+        if (candidate == null) {
+          continue;
         }
-        double objective = routeList.objective(interchange, excessCapacityPenaltyCoefficient,
-            customerUsePenaltyCoefficient, currentIteration, enableLogging);
-        updateInterchange(interchange, objective);
-      } else {
-        // Calculate both best insertion and best swap.
-        best0Interchange = searchNeighborhood(
-            (routeIdx) -> new Best0ICalculator(routeList, incumbent,
-                excessCapacityPenaltyCoefficient, customerUsePenaltyCoefficient, currentIteration,
-                shortTermMemory, params.firstBestFirst, routeIdx));
-        best1Interchange = searchNeighborhood(
-            (routeIdx) -> new Best1ICalculator(routeList, incumbent,
-                excessCapacityPenaltyCoefficient, customerUsePenaltyCoefficient, currentIteration,
-                shortTermMemory, params.firstBestFirst, routeIdx));
-        best2Interchange = searchNeighborhood(
-            (routeIdx) -> new BestRandom2ICalculator(routeList, incumbent,
-                excessCapacityPenaltyCoefficient, customerUsePenaltyCoefficient, currentIteration,
-                shortTermMemory, params.firstBestFirst, routeIdx, largeNeighborhoodSize));
-
-        // Get insertion objectives, if possible.
-        double objective0I = best0Interchange == null ? Double.POSITIVE_INFINITY
-            : routeList.objective(best0Interchange, excessCapacityPenaltyCoefficient,
-                customerUsePenaltyCoefficient, currentIteration, enableLogging);
-        double objective1I = best1Interchange == null ? Double.POSITIVE_INFINITY
-            : routeList.objective(best1Interchange, excessCapacityPenaltyCoefficient,
-                customerUsePenaltyCoefficient, currentIteration, enableLogging);
-        double objective2I = best2Interchange == null ? Double.POSITIVE_INFINITY
-            : routeList.objective(best2Interchange, excessCapacityPenaltyCoefficient,
-                customerUsePenaltyCoefficient, currentIteration, enableLogging);
-
-        if (best0Interchange != null || best1Interchange != null || best2Interchange != null) {
-          // If current best insertion is better.
-          if (objective0I <= objective1I && objective0I <= objective2I) {
-            assert best0Interchange != null;
-            updateInterchange(best0Interchange, objective0I);
-          } else if (objective1I <= objective0I && objective1I <= objective2I) {
-            assert best1Interchange != null;
-            updateInterchange(best1Interchange, objective1I);
-          } else {
-            assert best2Interchange != null;
-            updateInterchange(best2Interchange, objective2I);
-          }
+        double candidateObjective = routeList.objective(candidate,
+            excessCapacityPenaltyCoefficient, customerUsePenaltyCoefficient, currentIteration,
+            enableLogging);
+        if (bestInterchange == null || candidateObjective < bestObjective) {
+          bestInterchange = candidate;
+          bestObjective = candidateObjective;
         }
       }
+      if (bestInterchange != null) {
+        updateInterchange(bestInterchange, bestObjective);
+      }
+    }
 
-      // Check whether route length is actually correct.
-      /*
-      double routeSum = 0;
-      for (Route route : routeList.routes) {
-        routeSum += routeLength(route, distances);
+    // Check whether route length is actually correct.
+    /*
+    double routeSum = 0;
+    for (Route route : routeList.routes) {
+      routeSum += routeLength(route, distances);
+    }
+    assert Math.abs(routeSum - routeList.length / normCoefficient) < Math.pow(10, -6);
+     */
+
+    // Remove all tabu items that are past the tenure.
+    int finalCurrentIteration = currentIteration;
+    shortTermMemory.removeIf(tabuItem -> (tabuItem.expirationIteration < finalCurrentIteration));
+
+    // Check whether we should update the incumbent.
+    if (routeList.length < incumbent.length && calculateExcessCapacity(routeList) == 0) {
+      if (rand.nextDouble() < params.optimizationChance) {
+        optimizeRoutes(allRoutes());
+      }
+      incumbent = routeList.clone();
+      iterationsSinceLastIncumbent = 0;
+      publishImprovement(Kind.INCUMBENT, incumbent);
+      if (incumbent.length < bestIncumbent.length) {
+        bestIncumbent = incumbent.clone();
+        publishImprovement(Kind.BEST_INCUMBENT, bestIncumbent);
       }
-      assert Math.abs(routeSum - routeList.length / normCoefficient) < Math.pow(10, -6);
-       */
+      if (params.routeRecombination) {
+        recombination.record(incumbent);
+      }
+    } else {
+      iterationsSinceLastIncumbent++;
+    }
 
-      // Remove all tabu items that are past the tenure.
-      int finalCurrentIteration = currentIteration;
-      shortTermMemory.removeIf(tabuItem -> (tabuItem.expirationIteration < finalCurrentIteration));
+    // Continue from a recombination of pooled routes if it beats the incumbent.
+    List<List<Integer>> recombined = params.routeRecombination ? recombination.poll() : null;
+    if (recombined != null) {
+      acceptExternalSolution(createRouteList(recombined));
+    }
 
-      // Check whether we should update the incumbent.
-      if (routeList.length < incumbent.length && calculateExcessCapacity(routeList) == 0) {
-        incumbent = routeList.clone();
-        iterationsSinceLastIncumbent = 0;
-        if (incumbent.length < bestIncumbent.length) {
-          bestIncumbent = incumbent.clone();
-        }
-      } else {
-        iterationsSinceLastIncumbent++;
+    // Re-solve a group of incumbent routes exactly and merge finished groups.
+    if (!Double.isInfinite(incumbent.length)) {
+      RouteList reoptimized = subproblems.poll(incumbent);
+      if (reoptimized != null) {
+        acceptExternalSolution(reoptimized);
+      }
+      if (subproblems.hasCapacity()) {
+        subproblems.submit(incumbent);
       }
+    }
+
+    // Increase the neighborhood size, if necessary.
+    if (iterationsSinceLastIncumbent > params.largeNeighborhoodSizeIncreaseThreshold) {
+      largeNeighborhoodSize = Math.min(
+          (int) (largeNeighborhoodSize * params.largeNeighborhoodSizeMultiplier),
+          params.largeNeighborhoodMaxSize);
+    } else {
+      largeNeighborhoodSize = Math.max(
+          (int) (largeNeighborhoodSize / params.largeNeighborhoodSizeMultiplier),
+          params.largeNeighborhoodMinSize);
+    }
+
+    // Increase the customer use penalty, if necessary.
+    if (iterationsSinceLastIncumbent > params.customerUsePenaltyIncreaseThreshold) {
+      customerUsePenaltyCoefficient = Math.min(
+          customerUsePenaltyCoefficient * params.customerUsePenaltyMultiplier,
+          params.customerUseMaxPenalty);
+    } else {
+      customerUsePenaltyCoefficient = Math.max(
+          customerUsePenaltyCoefficient / params.customerUsePenaltyMultiplier,
+          params.customerUseMinPenalty);
+    }
 
-      // Increase the neighborhood size, if necessary.
-      if (iterationsSinceLastIncumbent > params.largeNeighborhoodSizeIncreaseThreshold) {
-        largeNeighborhoodSize = Math.min(
-            (int) (largeNeighborhoodSize * params.largeNeighborhoodSizeMultiplier),
-            params.largeNeighborhoodMaxSize);
+    // Adjust the number of last feasible solutions.
+    if (calculateExcessCapacity(routeList) == 0) {
+      if (lastFeasibleIterations > 0) {
+        lastFeasibleIterations++;
       } else {
-        largeNeighborhoodSize = Math.max(
-            (int) (largeNeighborhoodSize / params.largeNeighborhoodSizeMultiplier),
-            params.largeNeighborhoodMinSize);
+        lastFeasibleIterations = 1;
       }
-
-      // Increase the customer use penalty, if necessary.
-      if (iterationsSinceLastIncumbent > params.customerUsePenaltyIncreaseThreshold) {
-        customerUsePenaltyCoefficient = Math.min(
-            customerUsePenaltyCoefficient * params.customerUsePenaltyMultiplier,
-            params.customerUseMaxPenalty);
+    } else {
+      if (lastFeasibleIterations < 0) {
+        lastFeasibleIterations--;
       } else {
-        customerUsePenaltyCoefficient = Math.max(
-            customerUsePenaltyCoefficient / params.customerUsePenaltyMultiplier,
-            params.customerUseMinPenalty);
+        lastFeasibleIterations = -1;
       }
+    }
 
-      // Adjust the number of last feasible solutions.
-      if (calculateExcessCapacity(routeList) == 0) {
-        if (lastFeasibleIterations > 0) {
-          lastFeasibleIterations++;
-        } else {
-          lastFeasibleIterations = 1;
-        }
+    // Update excess capacity penalty, if necessary.
+    if (lastFeasibleIterations > params.excessCapacityPenaltyIncreaseThreshold) {
+      excessCapacityPenaltyCoefficient = Math.max(
+          excessCapacityPenaltyCoefficient / params.excessCapacityPenaltyMultiplier,
+          params.excessCapacityMinPenalty);
+    } else if (lastFeasibleIterations < -params.excessCapacityPenaltyIncreaseThreshold) {
+      excessCapacityPenaltyCoefficient = Math.min(
+          excessCapacityPenaltyCoefficient * params.excessCapacityPenaltyMultiplier,
+          params.excessCapacityMaxPenalty);
+    }
+
+    // Update random move chance, if necessary.
+    randomMoveChance = Math.max(
+        randomMoveChance / params.randomMoveMultiplier,
+        params.randomMoveMin);
+
+    // Diversify halfway to the restart by rebuilding a part of the incumbent.
+    if (iterationsSinceLastIncumbent == restartThreshold / 2
+        && !Double.isInfinite(incumbent.length)) {
+      routeList = ruinAndRecreate(incumbent);
+    }
+
+    // Random restarts.
+    if (iterationsSinceLastIncumbent > restartThreshold) {
+      // Clear short-term memory
+      shortTermMemory.clear();
+      // Instantiate coefficients.
+      largeNeighborhoodSize = params.largeNeighborhoodBaseSize;
+      excessCapacityPenaltyCoefficient = params.excessCapacityBasePenalty;
+      customerUsePenaltyCoefficient = params.customerUseBasePenalty;
+      randomMoveChance = params.randomMoveMax;
+      restartThreshold *= params.restartThresholdMultiplier;
+      // Keep the local optimum of this restart.
+      if (!Double.isInfinite(incumbent.length)) {
+        elitePool.offer(incumbent);
+      }
+      // Relink two elite solutions, rebuild a part of the incumbent, or take the next
+      // pre-generated solution.
+      RouteList relinked = null;
+      if (elitePool.size() >= 2 && rand.nextDouble() < params.pathRelinkingRestartChance) {
+        relinked = pathRelink();
+      }
+      if (relinked != null) {
+        routeList = relinked;
+      } else if (!Double.isInfinite(incumbent.length)
+          && rand.nextDouble() < params.ruinRestartChance) {
+        routeList = ruinAndRecreate(incumbent);
       } else {
-        if (lastFeasibleIterations < 0) {
-          lastFeasibleIterations--;
-        } else {
-          lastFeasibleIterations = -1;
-        }
+        routeList = nextRestartSolution();
       }
-
-      // Update excess capacity penalty, if necessary.
-      if (lastFeasibleIterations > params.excessCapacityPenaltyIncreaseThreshold) {
-        excessCapacityPenaltyCoefficient = Math.max(
-            excessCapacityPenaltyCoefficient / params.excessCapacityPenaltyMultiplier,
-            params.excessCapacityMinPenalty);
-      } else if (lastFeasibleIterations < -params.excessCapacityPenaltyIncreaseThreshold) {
-        excessCapacityPenaltyCoefficient = Math.min(
-            excessCapacityPenaltyCoefficient * params.excessCapacityPenaltyMultiplier,
-            params.excessCapacityMaxPenalty);
-      }
-
-      // Update random move chance, if necessary.
-      randomMoveChance = Math.max(
-          randomMoveChance / params.randomMoveMultiplier,
-          params.randomMoveMin);
-
-      // Random restarts.
-      if (iterationsSinceLastIncumbent > restartThreshold) {
-        // Clear short-term memory
-        shortTermMemory.clear();
-        // Instantiate coefficients.
-        largeNeighborhoodSize = params.largeNeighborhoodBaseSize;
-        excessCapacityPenaltyCoefficient = params.excessCapacityBasePenalty;
-        customerUsePenaltyCoefficient = params.customerUseBasePenalty;
-        randomMoveChance = params.randomMoveMax;
-        restartThreshold *= params.restartThresholdMultiplier;
-        // Generate the initial solution, initialize variables.
-        routeList = generateInitialSolution();
-        incumbent = routeList.clone();
-        if (incumbent.length < bestIncumbent.length) {
-          bestIncumbent = incumbent.clone();
-        }
-        objective = routeList.length;
-        iterationsSinceLastIncumbent = 0;
-        lastFeasibleIterations = 1;
+      if (rand.nextDouble() < params.optimizationChance) {
+        optimizeRoutes(allRoutes());
       }
-
-      // Log the data to the console.
-      if (enableLogging) {
-        System.out.println("\tCurrent objective (normalized): " + objective);
-        System.out.println(
-            "\tCurrent incumbent (denormalized): " + incumbent.length / normCoefficient);
-        System.out.println(
-            "\tBest incumbent (denormalized): " + bestIncumbent.length / normCoefficient);
-        System.out.println("--> PENALTIES");
-        System.out.println("\tEC Penalty Coefficient: " + excessCapacityPenaltyCoefficient);
-        System.out.println("\tCU Penalty Coefficient: " + customerUsePenaltyCoefficient);
-        System.out.println("-->  MEMORY");
-        System.out.println("\tShort-term memory: " + shortTermMemory);
-        System.out.println("\tLong-term memory: " + longTermMemory);
-        System.out.println("-->  NBHD & RESTARTS");
-        System.out.println("\tCurrent 2-interchange trials #: " + largeNeighborhoodSize);
-        System.out.println(
-            "\tCurrent # of last (in)feasible iterations: " + lastFeasibleIterations);
-        System.out.println(
-            "\tCurrent # of iterations since last incumbent: " + iterationsSinceLastIncumbent);
-        System.out.println("\tRestart threshold: " + restartThreshold);
-        System.out.println("\tRandom move chance: " + randomMoveChance);
-        System.out.println("-->  TIME");
-        System.out.println("\tElapsed time: " + watch.getTime());
+      incumbent = routeList.clone();
+      if (calculateExcessCapacity(routeList) > 0) {
+        incumbent.length = Double.POSITIVE_INFINITY;
+      }
+      if (incumbent.length < bestIncumbent.length) {
+        bestIncumbent = incumbent.clone();
+        publishImprovement(Kind.BEST_INCUMBENT, bestIncumbent);
       }
+      objective = routeList.length;
+      iterationsSinceLastIncumbent = 0;
+      lastFeasibleIterations = 1;
+    }
+
+    // Log the data to the console.
+    if (enableLogging) {
+      System.out.println("\tCurrent objective (normalized): " + objective);
+      System.out.println(
+          "\tCurrent incumbent (denormalized): " + incumbent.length / normCoefficient);
+      System.out.println(
+          "\tBest incumbent (denormalized): " + bestIncumbent.length / normCoefficient);
+      System.out.println("--> PENALTIES");
+      System.out.println("\tEC Penalty Coefficient: " + excessCapacityPenaltyCoefficient);
+      System.out.println("\tCU Penalty Coefficient: " + customerUsePenaltyCoefficient);
+      System.out.println("-->  MEMORY");
+      System.out.println("\tShort-term memory: " + shortTermMemory);
+      System.out.println("\tLong-term memory: " + longTermMemory);
+      System.out.println("-->  NBHD & RESTARTS");
+      System.out.println("\tCurrent 2-interchange trials #: " + largeNeighborhoodSize);
+      System.out.println(
+          "\tCurrent # of last (in)feasible iterations: " + lastFeasibleIterations);
+      System.out.println(
+          "\tCurrent # of iterations since last incumbent: " + iterationsSinceLastIncumbent);
+      System.out.println("\tRestart threshold: " + restartThreshold);
+      System.out.println("\tRandom move chance: " + randomMoveChance);
+      System.out.println("-->  TIME");
+      System.out.println("\tElapsed time: " + watch.getTime());
     }
   }
 
@@ -388,9 +698,118 @@ public class VRPInstanceSLS extends VRPInstance {
       shortTermMemory.add(new TabuItem(customer, currentIteration + getRandomTabuTenure()));
       longTermMemory[customer]++;
     }
+    // Segment exchanges are remembered by the customers at the ends of the moved segments.
+    if (interchange.isSegmentExchange()) {
+      for (int end = 0; end < RouteList.NUM_SEGMENT_ENDS; end++) {
+        int customer = routeList.segmentEndCustomer(interchange, end);
+        if (customer >= 0) {
+          shortTermMemory.add(new TabuItem(customer, currentIteration + getRandomTabuTenure()));
+          longTermMemory[customer]++;
+        }
+      }
+    }
 
     // Perform the actual interchange.
     routeList.perform(interchange);
+
+    // Short changed routes get their optimal order, usually straight from the cache.
+    objective += reorderShortRoute(interchange.routeIdx1);
+    if (interchange.routeIdx2 != interchange.routeIdx1) {
+      objective += reorderShortRoute(interchange.routeIdx2);
+    }
+
+    // Optimize the order of the changed routes.
+    if (rand.nextDouble() < params.randomOptimizationChance) {
+      optimizeRoutes(new int[]{interchange.routeIdx1, interchange.routeIdx2});
+    }
+  }
+
+  /**
+   * Optimizes the order of customers within the given routes of the current solution, for at most
+   * the optimization timeout and never past the search deadline.
+   *
+   * @param routeIndices routes to optimize.
+   */
+  private void optimizeRoutes(int[] routeIndices) {
+    double start = watch.getTime();
+    double timeout = Math.min(params.optimizationTimeout, deadline - start);
+    long deadlineNanos = System.nanoTime() + (long) (Math.max(0, timeout) * 1000000000.0);
+    for (int routeIdx : routeIndices) {
+      Route route = routeList.routes[routeIdx];
+      if (shortRoutes.covers(route)) {
+        reorderShortRoute(routeIdx);
+      } else {
+        routeList.length += routeOptimizer.optimize(route, deadlineNanos);
+        routeList.updatePrefixes(routeIdx);
+      }
+    }
+    optimizationTime += watch.getTime() - start;
+  }
+
+  /**
+   * Puts the customers of a short route of the current solution into their optimal order.
+   *
+   * @return change of the solution length, zero or negative.
+   */
+  private double reorderShortRoute(int routeIdx) {
+    Route route = routeList.routes[routeIdx];
+    if (!shortRoutes.covers(route)) {
+      return 0;
+    }
+    double delta = shortRoutes.reorder(route);
+    if (delta < 0) {
+      routeList.length += delta;
+      routeList.updatePrefixes(routeIdx);
+    }
+    return delta;
+  }
+
+  /**
+   * Continues the search from a solution found outside of it, if it beats the incumbent.
+   *
+   * @param candidate solution with normalized length.
+   */
+  private void acceptExternalSolution(RouteList candidate) {
+    if (candidate.length >= incumbent.length || calculateExcessCapacity(candidate) > 0) {
+      return;
+    }
+    routeList = candidate;
+    objective = routeList.length;
+    incumbent = routeList.clone();
+    iterationsSinceLastIncumbent = 0;
+    publishImprovement(Kind.INCUMBENT, incumbent);
+    if (incumbent.length < bestIncumbent.length) {
+      bestIncumbent = incumbent.clone();
+      publishImprovement(Kind.BEST_INCUMBENT, bestIncumbent);
+    }
+  }
+
+  /**
+   * Removes a related subset of customers from the solution and reinserts them.
+   *
+   * @param solution solution to start from; not modified.
+   * @return routes of the new solution, possibly exceeding the vehicle capacity.
+   */
+  private RouteList ruinAndRecreate(RouteList solution) {
+    int numRemoved = (int) Math.min(params.ruinMaxCustomers,
+        Math.max(params.ruinMinCustomers, params.ruinFraction * customers.length));
+    return createRouteList(ruinAndRecreate.apply(solution, numRemoved, rand));
+  }
+
+  /**
+   * Walks between two random elite solutions, in a random direction.
+   *
+   * @return best feasible solution on the path, or null if there is none.
+   */
+  private RouteList pathRelink() {
+    RouteList[] pair = elitePool.pickPair(rand);
+    int first = rand.nextInt(2);
+    List<List<Integer>> routes = pathRelinking.relink(pair[first], pair[1 - first]);
+    return routes == null ? null : createRouteList(routes);
+  }
+
+  private int[] allRoutes() {
+    return IntStream.range(0, routeList.routes.length).toArray();
   }
 
   private Interchange searchNeighborhood(InterchangePerRoute lambda) {
@@ -430,9 +849,9 @@ public class VRPInstanceSLS extends VRPInstance {
    */
   private int getRandomTabuTenure() {
     int minimumTabuTenure = (int) Math.floor(
-        params.minimumTabuTenureMultiplier * Math.sqrt(numCustomers));
+        params.minimumTabuTenureMultiplier * Math.sqrt(problemSize));
     int maximumTabuTenure = (int) Math.floor(
-        params.maximumTabuTenureMultiplier * Math.sqrt(numCustomers));
+        params.maximumTabuTenureMultiplier * Math.sqrt(problemSize));
     return rand.nextInt((maximumTabuTenure - minimumTabuTenure) + 1) + minimumTabuTenure;
   }
 
@@ -455,82 +874,209 @@ public class VRPInstanceSLS extends VRPInstance {
   }
 
   /**
-   * Generates initial feasible solution via solving a bin packing problem.
+   * Keeps the restart queue full, blocking while it is at capacity. Runs until interrupted.
    *
-   * @return routes of the initial feasible solution.
+   * @param producerRand random number generator owned by the producer thread.
    */
-  private RouteList generateInitialSolution() {
-    try (IloCplex bppModel = new IloCplex()) {
-      bppModel.setOut(null);
-      bppModel.setWarning(null);
-
-      // Bound taken from the official CPLEX docs.
-      bppModel.setParam(Param.RandomSeed, rand.nextInt(2100000000));
+  private void produceRestartSolutions(Random producerRand) {
+    try {
+      while (!Thread.currentThread().isInterrupted()) {
+        restartSolutions.put(generateInitialSolution(producerRand));
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
 
-      IloNumVar[] useVehicles = bppModel.boolVarArray(numVehicles);
-      IloNumVar[][] customerVehicleAssignment = new IloNumVar[numCustomers - 1][numVehicles];
+  /**
+   * Takes a pre-generated restart solution, falling back to generating one synchronously if the
+   * producer has not caught up yet.
+   *
+   * @return routes of the restart solution.
+   */
+  private RouteList nextRestartSolution() {
+    if (warmStartSolution != null && params.warmStartRestarts
+        && rand.nextDouble() < params.warmStartRestartChance) {
+      return warmStartSolution.clone();
+    }
+    RouteList restartSolution = restartSolutions.poll();
+    if (restartSolution == null) {
+      if (enableLogging) {
+        System.out.println("Restart queue is empty, generating synchronously.");
+      }
+      restartSolution = generateInitialSolution(rand);
+    }
+    return restartSolution;
+  }
 
-      for (int i = 0; i < numCustomers - 1; i++) {
-        for (int j = 0; j < numVehicles; j++) {
-          customerVehicleAssignment[i][j] = bppModel.boolVar();
+  /**
+   * Reads routes from a solution file in the format produced by Main: the objective and the
+   * optimality flag, then one route per line, each starting and ending at the depot.
+   *
+   * @param fileName solution file to read.
+   * @return routes of the solution, or null if the file is missing or does not describe a feasible
+   * solution of this instance.
+   */
+  private RouteList readSolution(String fileName) {
+    List<List<Integer>> solutionRoutes = new ArrayList<>();
+    try (Scanner read = new Scanner(new File(fileName))) {
+      // Skip the header with the objective and the optimality flag.
+      read.nextLine();
+      while (read.hasNextLine()) {
+        String line = read.nextLine().trim();
+        if (line.isEmpty()) {
+          continue;
         }
+        List<Integer> route = new ArrayList<>();
+        for (String token : line.split("\\s+")) {
+          route.add(Integer.parseInt(token));
+        }
+        solutionRoutes.add(route);
       }
+    } catch (FileNotFoundException | RuntimeException e) {
+      System.out.println("Could not read warm start solution " + fileName + ": " + e);
+      return null;
+    }
 
-      // Enforce each customer (item) being assigned to only one vehicle (bin).
-      for (int i = 0; i < numCustomers - 1; i++) {
-        IloLinearNumExpr totalAssignments = bppModel.linearNumExpr();
-        for (int j = 0; j < numVehicles; j++) {
-          totalAssignments.addTerm(1, customerVehicleAssignment[i][j]);
-        }
-        bppModel.addEq(totalAssignments, 1);
+    RouteList solution;
+    try {
+      solution = createRouteList(solutionRoutes);
+    } catch (IllegalArgumentException e) {
+      System.out.println("Warm start solution is invalid (" + e.getMessage() + "), ignoring it.");
+      return null;
+    }
+    if (calculateExcessCapacity(solution) != 0) {
+      System.out.println("Warm start solution exceeds vehicle capacity, ignoring it.");
+      return null;
+    }
+    return solution;
+  }
+
+  /**
+   * Builds a route list for this problem from explicit routes. Vehicles without a route stay at
+   * the depot. Capacity is not checked.
+   *
+   * @param solutionRoutes routes, each starting and ending at the depot.
+   * @return routes of the solution, with normalized length.
+   * @throws IllegalArgumentException if the routes do not visit every customer exactly once.
+   */
+  public RouteList createRouteList(List<List<Integer>> solutionRoutes) {
+    if (solutionRoutes.size() > numVehicles) {
+      throw new IllegalArgumentException("too many vehicles");
+    }
+
+    boolean[] served = new boolean[numCustomers];
+    for (int customer : customers) {
+      served[customer] = true;
+    }
+    boolean[] visited = new boolean[numCustomers];
+    Route[] routes = new Route[numVehicles];
+    double routesLength = 0;
+    int excessCapacity = 0;
+
+    for (int i = 0; i < numVehicles; i++) {
+      // Vehicles missing from the solution stay at the depot.
+      List<Integer> route = i < solutionRoutes.size() ? solutionRoutes.get(i) : List.of(0, 0);
+      if (route.size() < 2 || route.get(0) != 0 || route.get(route.size() - 1) != 0) {
+        throw new IllegalArgumentException("route does not start and end at the depot");
       }
 
-      // Enforce capacity constraints.
-      for (int i = 0; i < numVehicles; i++) {
-        IloLinearNumExpr totalLoad = bppModel.linearNumExpr();
-        for (int j = 0; j < numCustomers - 1; j++) {
-          totalLoad.addTerm(customerVehicleAssignment[j][i], demandOfCustomer[j + 1]);
-        }
-        IloLinearNumExpr maxLoad = bppModel.linearNumExpr();
-        maxLoad.addTerm(vehicleCapacity, useVehicles[i]);
-        bppModel.addLe(totalLoad, maxLoad);
-      }
-
-      if (bppModel.solve()) {
-        Route[] initialRoutes = new Route[numVehicles];
-        double initialRoutesLength = 0;
-
-        for (int i = 0; i < numVehicles; i++) {
-          List<Integer> currentRoute = new ArrayList<>();
-          int currentRouteDemand = 0;
-          double currentRouteLength = 0;
-
-          currentRoute.add(0);
-          for (int j = 0; j < numCustomers - 1; j++) {
-            if (bppModel.getValue(customerVehicleAssignment[j][i]) == 1) {
-              currentRoute.add(j + 1);
-              currentRouteDemand += demandOfCustomer[j + 1];
-            }
-          }
-          currentRoute.add(0);
-
-          for (int customerIdx = 0; customerIdx < currentRoute.size() - 1; customerIdx++) {
-            currentRouteLength += distances[currentRoute.get(customerIdx)][currentRoute.get(
-                customerIdx + 1)];
-          }
-
-          initialRoutes[i] = new Route(currentRoute, numCustomers, currentRouteDemand);
-          initialRoutesLength += currentRouteLength;
+      int routeDemand = 0;
+      for (int customerIdx = 1; customerIdx < route.size() - 1; customerIdx++) {
+        int customer = route.get(customerIdx);
+        if (customer <= 0 || customer >= numCustomers || !served[customer]
+            || visited[customer]) {
+          throw new IllegalArgumentException("customer " + customer + " visited incorrectly");
         }
+        visited[customer] = true;
+        routeDemand += demandOfCustomer[customer];
+      }
+      for (int customerIdx = 0; customerIdx < route.size() - 1; customerIdx++) {
+        routesLength += distances[route.get(customerIdx)][route.get(customerIdx + 1)];
+      }
 
-        return new RouteList(initialRoutes, initialRoutesLength, distances, demandOfCustomer,
-            vehicleCapacity, longTermMemory, numCustomers, 0);
-      } else {
-        throw new IllegalArgumentException("Infeasible BPP model.");
+      routes[i] = new Route(route, problemSize, routeDemand);
+      excessCapacity += Math.max(0, routeDemand - vehicleCapacity);
+    }
+
+    for (int customer : customers) {
+      if (!visited[customer]) {
+        throw new IllegalArgumentException("customer " + customer + " is not visited");
       }
-    } catch (IloException e) {
-      throw new RuntimeException(e);
     }
+
+    return new RouteList(routes, routesLength, distances, demandOfCustomer, vehicleCapacity,
+        longTermMemory, problemSize, excessCapacity);
+  }
+
+  /**
+   * Starts the search from the given solution instead of constructing one. Has to be called
+   * before the first solve or step. The solution may exceed the vehicle capacity, in which case
+   * the search first looks for a feasible one. The search continues from the solution without the
+   * random moves of a fresh start.
+   *
+   * @param initialSolution solution created by {@link #createRouteList(List)}.
+   */
+  public void start(RouteList initialSolution) {
+    if (routeList != null) {
+      throw new IllegalStateException("The search has already started.");
+    }
+    this.initialSolution = initialSolution;
+    randomMoveChance = params.randomMoveMin;
+  }
+
+  /**
+   * Packs the customers into the vehicles afresh, like for the initial solution.
+   *
+   * @return routes of the new packing.
+   */
+  public RouteList packCustomers() {
+    return generateInitialSolution(rand);
+  }
+
+  /**
+   * Generates an initial solution by packing the customers into the vehicles, with the MIP
+   * backend if there is one and with randomized first-fit decreasing otherwise. The latter may
+   * overload vehicles on tight instances, which the search then tries to repair.
+   *
+   * @param random random number generator to seed the packing with.
+   * @return routes of the initial solution.
+   */
+  private RouteList generateInitialSolution(Random random) {
+    int[] demands = new int[customers.length];
+    for (int i = 0; i < customers.length; i++) {
+      demands[i] = demandOfCustomer[customers[i]];
+    }
+
+    int[] vehicleOfCustomer = null;
+    MipBackend backend = packingBackend;
+    if (backend != null) {
+      try {
+        vehicleOfCustomer = backend.packBins(demands, numVehicles, vehicleCapacity, random);
+      } catch (RuntimeException | LinkageError e) {
+        packingBackend = null;
+        if (enableLogging) {
+          System.out.println("Packing without " + backend.name() + ": " + e);
+        }
+      }
+    }
+    if (vehicleOfCustomer == null) {
+      vehicleOfCustomer = FirstFitPacking.assign(demands, numVehicles, vehicleCapacity, random);
+    }
+
+    List<List<Integer>> routes = new ArrayList<>();
+    for (int i = 0; i < numVehicles; i++) {
+      List<Integer> route = new ArrayList<>();
+      route.add(0);
+      routes.add(route);
+    }
+    for (int i = 0; i < customers.length; i++) {
+      routes.get(vehicleOfCustomer[i]).add(customers[i]);
+    }
+    for (List<Integer> route : routes) {
+      route.add(0);
+    }
+    return createRouteList(routes);
   }
 
   // Serialize all routes into the required format.
@@ -539,17 +1085,19 @@ public class VRPInstanceSLS extends VRPInstance {
     int excessVehicles = numVehicles - routeList.routes.length;
     assert excessVehicles == 0;
 
-    System.out.println("Routes: " + routeList.routes.length);
-    for (Route route : routeList.routes) {
-      for (int i = 0; i < route.length; i++) {
-        System.out.print(route.customers[i] + " ");
+    if (params.verbosity.atLeast(Verbosity.NORMAL)) {
+      System.out.println("Routes: " + routeList.routes.length);
+      for (Route route : routeList.routes) {
+        for (int i = 0; i < route.length; i++) {
+          System.out.print(route.customers[i] + " ");
+        }
+        System.out.println();
       }
-      System.out.println();
     }
 
     // convert to a string
     List<Integer> flattenedList = new ArrayList<>();
-    flattenedList.add(0); // NOTE: 1 HERE IF PROVED OPTIMAL, ELSE 0
+    flattenedList.add(handle.provesOptimal(routeList.length) ? 1 : 0);
 
     for (Route route : routeList.routes) {
       for (int i = 0; i < route.length; i++) {
@@ -0,0 +1,401 @@
+package solver.ls.instances;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.stream.IntStream;
+import solver.ls.utils.ByteTokenizer;
+import solver.ls.utils.Verbosity;
+
+/**
+ * Immutable VRP instance: customers, vehicles and the preprocessed distance data. The arrays are
+ * shared with every solver built on the problem and must not be modified.
+ */
+public class VRPProblem {
+
+  /**
+   * How many nearest customers to keep for every customer.
+   */
+  public static final int NEIGHBOR_LIST_SIZE = 32;
+
+  public final int numCustomers;                 // the number of customers
+  public final int numVehicles;                  // the number of vehicles
+  public final int vehicleCapacity;              // the capacity of the vehicles
+  public final int[] demandOfCustomer;           // the demand of each customer
+  public final double[] xCoordOfCustomer;        // the x coordinate of each customer
+  public final double[] yCoordOfCustomer;        // the y coordinate of each customer
+  public final double[][] distances;             // distances between all customers
+  public final double[][] originalDistances;     // original distances between all customers
+  public final double normCoefficient;           // normalization coefficient
+  public final int[][] neighborLists;            // nearest customers of each customer
+  public final double loadTime;                  // time to load and preprocess (seconds)
+  public final int[] customers;                  // customers to serve, without the depot
+
+  VRPProblem(int numVehicles, int vehicleCapacity, int[] demandOfCustomer,
+      double[] xCoordOfCustomer, double[] yCoordOfCustomer, double[][] distances,
+      double[][] originalDistances, double normCoefficient, int[][] neighborLists,
+      double loadTime) {
+    this(numVehicles, vehicleCapacity, demandOfCustomer, xCoordOfCustomer, yCoordOfCustomer,
+        distances, originalDistances, normCoefficient, neighborLists, loadTime,
+        IntStream.range(1, demandOfCustomer.length).toArray());
+  }
+
+  private VRPProblem(int numVehicles, int vehicleCapacity, int[] demandOfCustomer,
+      double[] xCoordOfCustomer, double[] yCoordOfCustomer, double[][] distances,
+      double[][] originalDistances, double normCoefficient, int[][] neighborLists,
+      double loadTime, int[] customers) {
+    this.numCustomers = demandOfCustomer.length;
+    this.numVehicles = numVehicles;
+    this.vehicleCapacity = vehicleCapacity;
+    this.demandOfCustomer = demandOfCustomer;
+    this.xCoordOfCustomer = xCoordOfCustomer;
+    this.yCoordOfCustomer = yCoordOfCustomer;
+    this.distances = distances;
+    this.originalDistances = originalDistances;
+    this.normCoefficient = normCoefficient;
+    this.neighborLists = neighborLists;
+    this.loadTime = loadTime;
+    this.customers = customers;
+  }
+
+  /**
+   * Builds a problem from in-memory data, customer 0 being the depot.
+   */
+  public static VRPProblem of(int numVehicles, int vehicleCapacity, int[] demandOfCustomer,
+      double[] xCoordOfCustomer, double[] yCoordOfCustomer) {
+    long start = System.nanoTime();
+    if (xCoordOfCustomer.length != demandOfCustomer.length
+        || yCoordOfCustomer.length != demandOfCustomer.length) {
+      throw new IllegalArgumentException("Demands and coordinates differ in length.");
+    }
+    double[][] originalDistances = getDistances(xCoordOfCustomer, yCoordOfCustomer);
+    double normCoefficient = getNormCoefficient(originalDistances);
+    double[][] distances = getNormalizedDistances(originalDistances, normCoefficient);
+    int[][] neighborLists = getNeighborLists(distances,
+        Math.min(NEIGHBOR_LIST_SIZE, demandOfCustomer.length - 1));
+    return new VRPProblem(numVehicles, vehicleCapacity, demandOfCustomer.clone(),
+        xCoordOfCustomer.clone(), yCoordOfCustomer.clone(), distances, originalDistances,
+        normCoefficient, neighborLists, (System.nanoTime() - start) / 1000000000.0);
+  }
+
+  /**
+   * Parses a problem in the .vrp format: the numbers of customers and vehicles, the capacity,
+   * then demand and coordinates of every customer.
+   */
+  public static VRPProblem parse(ByteTokenizer read) {
+    int numCustomers = read.nextInt();
+    int numVehicles = read.nextInt();
+    int vehicleCapacity = read.nextInt();
+
+    int[] demandOfCustomer = new int[numCustomers];
+    double[] xCoordOfCustomer = new double[numCustomers];
+    double[] yCoordOfCustomer = new double[numCustomers];
+
+    // all customers but the depot
+    for (int i = 0; i < numCustomers; i++) {
+      demandOfCustomer[i] = read.nextInt();
+      xCoordOfCustomer[i] = read.nextDouble();
+      yCoordOfCustomer[i] = read.nextDouble();
+    }
+
+    return of(numVehicles, vehicleCapacity, demandOfCustomer, xCoordOfCustomer,
+        yCoordOfCustomer);
+  }
+
+  /**
+   * Loads a problem from a .vrp file, going through the binary instance cache if requested.
+   */
+  public static VRPProblem load(String fileName, Verbosity verbosity, boolean useCache)
+      throws IOException {
+    long loadStart = System.nanoTime();
+    Path source = Paths.get(fileName);
+    Path cache = InstanceCache.cachePath(source);
+
+    byte[] sourceHash = null;
+    VRPProblem problem = null;
+    if (useCache) {
+      sourceHash = InstanceCache.hash(source);
+      problem = InstanceCache.load(cache, sourceHash);
+    }
+    boolean cached = problem != null;
+    if (!cached) {
+      problem = parse(ByteTokenizer.open(source));
+      if (useCache) {
+        try {
+          InstanceCache.store(problem, cache, sourceHash);
+        } catch (IOException e) {
+          System.out.println("Warning: could not write instance cache " + cache + ": " + e);
+        }
+      }
+    }
+    problem = problem.withLoadTime((System.nanoTime() - loadStart) / 1000000000.0);
+
+    if (verbosity.atLeast(Verbosity.NORMAL)) {
+      System.out.println("Number of customers: " + problem.numCustomers);
+      System.out.println("Number of vehicles: " + problem.numVehicles);
+      System.out.println("Vehicle capacity: " + problem.vehicleCapacity);
+      if (cached) {
+        System.out.println("Loaded from cache: " + cache);
+      }
+    }
+
+    if (verbosity.atLeast(Verbosity.VERBOSE)) {
+      StringBuilder parsedData = new StringBuilder("Parsed data (demand, x, y): \n");
+      for (int i = 0; i < problem.numCustomers; i++) {
+        parsedData.append(problem.demandOfCustomer[i]).append(' ')
+            .append(problem.xCoordOfCustomer[i]).append(' ')
+            .append(problem.yCoordOfCustomer[i]).append('\n');
+      }
+      System.out.print(parsedData);
+    }
+
+    return problem;
+  }
+
+  private VRPProblem withLoadTime(double loadTime) {
+    return new VRPProblem(numVehicles, vehicleCapacity, demandOfCustomer, xCoordOfCustomer,
+        yCoordOfCustomer, distances, originalDistances, normCoefficient, neighborLists,
+        loadTime, customers);
+  }
+
+  /**
+   * Restricts the problem to some of its customers and vehicles. Customers keep their indices and
+   * the subproblem shares all data arrays with this problem, so creating one is cheap.
+   *
+   * @param customers   customers the subproblem serves, without the depot.
+   * @param numVehicles vehicles available to the subproblem.
+   */
+  public VRPProblem subproblem(int[] customers, int numVehicles) {
+    return new VRPProblem(numVehicles, vehicleCapacity, demandOfCustomer, xCoordOfCustomer,
+        yCoordOfCustomer, distances, originalDistances, normCoefficient, neighborLists, 0,
+        customers);
+  }
+
+  /**
+   * Copies the data of some customers into a standalone problem, for models that index every
+   * customer of their problem. Customer i of the copy is customers[i - 1] of this problem. The
+   * normalization coefficient is carried over, so objectives stay comparable.
+   *
+   * @param customers   customers of the copy, without the depot.
+   * @param numVehicles number of vehicles of the copy.
+   */
+  public VRPProblem compact(int[] customers, int numVehicles) {
+    int size = customers.length + 1;
+    int[] nodes = new int[size];
+    System.arraycopy(customers, 0, nodes, 1, customers.length);
+
+    int[] demands = new int[size];
+    double[] xCoords = new double[size];
+    double[] yCoords = new double[size];
+    double[][] compactDistances = new double[size][size];
+    double[][] compactOriginalDistances = new double[size][size];
+    for (int i = 0; i < size; i++) {
+      demands[i] = demandOfCustomer[nodes[i]];
+      xCoords[i] = xCoordOfCustomer[nodes[i]];
+      yCoords[i] = yCoordOfCustomer[nodes[i]];
+      for (int j = 0; j < size; j++) {
+        compactDistances[i][j] = distances[nodes[i]][nodes[j]];
+        compactOriginalDistances[i][j] = originalDistances[nodes[i]][nodes[j]];
+      }
+    }
+    int[][] compactNeighborLists = getNeighborLists(compactDistances,
+        Math.min(NEIGHBOR_LIST_SIZE, size - 1));
+    return new VRPProblem(numVehicles, vehicleCapacity, demands, xCoords, yCoords,
+        compactDistances, compactOriginalDistances, normCoefficient, compactNeighborLists, 0);
+  }
+
+  /**
+   * Whether the problem serves only some of the customers it has data for.
+   */
+  public boolean isSubproblem() {
+    return customers.length != numCustomers - 1;
+  }
+
+  /**
+   * Applies a delta to this problem. Kept customers are renumbered compactly in their original
+   * order and added customers are appended. Distances between kept customers are copied rather
+   * than recomputed, and the normalization coefficient is carried over so that objectives stay
+   * comparable with the previous problem.
+   */
+  public ProblemUpdate apply(InstanceDelta delta) {
+    if (isSubproblem()) {
+      throw new IllegalStateException("Deltas apply to full problems only.");
+    }
+    long start = System.nanoTime();
+    for (int customer : delta.removedCustomers) {
+      if (customer <= 0 || customer >= numCustomers) {
+        throw new IllegalArgumentException("Cannot remove unknown customer " + customer + ".");
+      }
+    }
+    for (int customer : delta.demandChanges.keySet()) {
+      if (customer <= 0 || customer >= numCustomers) {
+        throw new IllegalArgumentException("Cannot change demand of customer " + customer + ".");
+      }
+    }
+
+    // Map the kept customers onto the new indices.
+    int[] customerMap = new int[numCustomers];
+    int[] keptCustomers = new int[numCustomers - delta.removedCustomers.size()];
+    int next = 0;
+    for (int i = 0; i < numCustomers; i++) {
+      if (delta.removedCustomers.contains(i)) {
+        customerMap[i] = -1;
+      } else {
+        customerMap[i] = next;
+        keptCustomers[next++] = i;
+      }
+    }
+    int numKept = next;
+    int newNumCustomers = numKept + delta.addedCustomers.size();
+    int[] addedCustomers = IntStream.range(numKept, newNumCustomers).toArray();
+
+    int[] newDemand = new int[newNumCustomers];
+    double[] newX = new double[newNumCustomers];
+    double[] newY = new double[newNumCustomers];
+    for (int i = 0; i < numKept; i++) {
+      int old = keptCustomers[i];
+      newDemand[i] = delta.demandChanges.getOrDefault(old, demandOfCustomer[old]);
+      newX[i] = xCoordOfCustomer[old];
+      newY[i] = yCoordOfCustomer[old];
+    }
+    for (int i = numKept; i < newNumCustomers; i++) {
+      InstanceDelta.AddedCustomer added = delta.addedCustomers.get(i - numKept);
+      newDemand[i] = added.demand;
+      newX[i] = added.x;
+      newY[i] = added.y;
+    }
+
+    // Copy the known distances, only compute the ones involving new customers.
+    double[][] newOriginalDistances = new double[newNumCustomers][newNumCustomers];
+    double[][] newDistances = new double[newNumCustomers][newNumCustomers];
+    IntStream.range(0, newNumCustomers).parallel().forEach(i -> {
+      double[] originalRow = newOriginalDistances[i];
+      double[] row = newDistances[i];
+      int from = 0;
+      if (i < numKept) {
+        double[] oldOriginalRow = originalDistances[keptCustomers[i]];
+        double[] oldRow = distances[keptCustomers[i]];
+        for (int j = 0; j < numKept; j++) {
+          originalRow[j] = oldOriginalRow[keptCustomers[j]];
+          row[j] = oldRow[keptCustomers[j]];
+        }
+        from = numKept;
+      }
+      for (int j = from; j < newNumCustomers; j++) {
+        originalRow[j] = distance(newX[i], newX[j], newY[i], newY[j]);
+        row[j] = originalRow[j] * normCoefficient;
+      }
+    });
+
+    int size = Math.min(NEIGHBOR_LIST_SIZE, newNumCustomers - 1);
+    int[][] newNeighborLists = new int[newNumCustomers][];
+    IntStream.range(0, newNumCustomers).parallel().forEach(i -> {
+      newNeighborLists[i] = i < numKept
+          ? updateNeighborList(neighborLists[keptCustomers[i]], customerMap, addedCustomers,
+          newDistances[i], i, size)
+          : null;
+      if (newNeighborLists[i] == null) {
+        newNeighborLists[i] = getNeighborList(newDistances[i], i, size);
+      }
+    });
+
+    VRPProblem problem = new VRPProblem(numVehicles, vehicleCapacity, newDemand, newX, newY,
+        newDistances, newOriginalDistances, normCoefficient, newNeighborLists,
+        (System.nanoTime() - start) / 1000000000.0);
+    return new ProblemUpdate(this, problem, customerMap, addedCustomers);
+  }
+
+  /**
+   * Updates a neighbor list by dropping removed customers and merging in closer new ones.
+   *
+   * @return the updated list, or null if too many neighbors were removed to update it reliably.
+   */
+  private static int[] updateNeighborList(int[] oldList, int[] customerMap, int[] addedCustomers,
+      double[] row, int customer, int size) {
+    int[] kept = Arrays.stream(oldList).map(j -> customerMap[j]).filter(j -> j >= 0).toArray();
+    // Customers beyond the old list may now belong to the list, unless the old list was complete.
+    boolean complete = oldList.length == customerMap.length - 1;
+    if (kept.length < size && !complete) {
+      return null;
+    }
+
+    int[] added = Arrays.stream(addedCustomers).filter(j -> j != customer).boxed()
+        .sorted(Comparator.comparingDouble(j -> row[j])).mapToInt(Integer::intValue).toArray();
+    int[] merged = new int[kept.length + added.length];
+    int i = 0;
+    int a = 0;
+    int m = 0;
+    while (i < kept.length || a < added.length) {
+      if (a >= added.length || (i < kept.length && row[kept[i]] <= row[added[a]])) {
+        merged[m++] = kept[i++];
+      } else {
+        merged[m++] = added[a++];
+      }
+    }
+    return Arrays.copyOf(merged, Math.min(size, m));
+  }
+
+  private static int[] getNeighborList(double[] row, int customer, int size) {
+    return IntStream.range(0, row.length)
+        .filter(j -> j != customer)
+        .boxed()
+        .sorted(Comparator.comparingDouble(j -> row[j]))
+        .limit(size)
+        .mapToInt(Integer::intValue)
+        .toArray();
+  }
+
+  private static double distance(double x1, double x2, double y1, double y2) {
+    return Math.sqrt(Math.pow((x1 - x2), 2) + Math.pow((y1 - y2), 2));
+  }
+
+  private static double[][] getDistances(double[] xCoordOfCustomer, double[] yCoordOfCustomer) {
+    int numCustomers = xCoordOfCustomer.length;
+    double[][] distances = new double[numCustomers][numCustomers];
+
+    // Calculate distances, one row per task.
+    IntStream.range(0, numCustomers).parallel().forEach(i -> {
+      double[] row = distances[i];
+      for (int j = 0; j < numCustomers; j++) {
+        row[j] = distance(xCoordOfCustomer[i], xCoordOfCustomer[j], yCoordOfCustomer[i],
+            yCoordOfCustomer[j]);
+      }
+    });
+
+    return distances;
+  }
+
+  private static double getNormCoefficient(double[][] distances) {
+    double maxDistance = Arrays.stream(distances).parallel()
+        .mapToDouble(row -> Arrays.stream(row).max().orElse(0))
+        .max().orElse(0);
+
+    return 100.0 / maxDistance;
+  }
+
+  static double[][] getNormalizedDistances(double[][] distances,
+      double normCoefficient) {
+    int numCustomers = distances.length;
+    double[][] normalizedDistances = new double[numCustomers][numCustomers];
+    IntStream.range(0, numCustomers).parallel().forEach(i -> {
+      for (int j = 0; j < numCustomers; j++) {
+        normalizedDistances[i][j] = distances[i][j] * normCoefficient;
+      }
+    });
+
+    return normalizedDistances;
+  }
+
+  private static int[][] getNeighborLists(double[][] distances, int size) {
+    int numCustomers = distances.length;
+    int[][] neighborLists = new int[numCustomers][];
+
+    // Sort the other customers of each row by distance, keep the closest ones.
+    IntStream.range(0, numCustomers).parallel()
+        .forEach(i -> neighborLists[i] = getNeighborList(distances[i], i, size));
+
+    return neighborLists;
+  }
+}
@@ -0,0 +1,77 @@
+package solver.ls.interchanges;
+
+import java.util.List;
+import solver.ls.data.Interchange;
+import solver.ls.data.InterchangeResult;
+import solver.ls.data.Route;
+import solver.ls.data.RouteList;
+import solver.ls.data.Segment;
+import solver.ls.data.TabuItem;
+
+/**
+ * Inter-route 2-opt*: cuts two routes and exchanges their tails. Every move is evaluated in
+ * constant time from the prefix demands and lengths of the routes.
+ */
+public class Best2OptStarCalculator extends InterchangeCalculator {
+
+  private final int routeIdx1;
+
+  public Best2OptStarCalculator(RouteList routeList, RouteList incumbent,
+      double excessCapacityPenaltyCoefficient, double customerUsePenaltyCoefficient,
+      int currentIteration, List<TabuItem> shortTermMemory, boolean firstBestFirst, int routeIdx1) {
+    super(routeList, incumbent, excessCapacityPenaltyCoefficient, customerUsePenaltyCoefficient,
+        shortTermMemory, firstBestFirst, currentIteration);
+    this.routeIdx1 = routeIdx1;
+  }
+
+  public InterchangeResult call() {
+    // Dummy interchange, to be edited later.
+    Interchange interchange = new Interchange(
+        routeIdx1, new Segment(1, 0, false),
+        0, new Segment(1, 0, false));
+
+    Route route1 = routeList.routes[routeIdx1];
+
+    // Exchanging tails is symmetric, so only check the routes after this one.
+    for (int routeIdx2 = routeIdx1 + 1; routeIdx2 < routeList.routes.length; routeIdx2++) {
+      interchange.routeIdx2 = routeIdx2;
+      Route route2 = routeList.routes[routeIdx2];
+
+      // Cut each route after the given position, the tails run up to the final depot.
+      for (int cutIdx1 = 0; cutIdx1 < route1.length - 1; cutIdx1++) {
+        interchange.segment1.start = cutIdx1 + 1;
+        interchange.segment1.end = route1.length - 2;
+        for (int cutIdx2 = 0; cutIdx2 < route2.length - 1; cutIdx2++) {
+          interchange.segment2.start = cutIdx2 + 1;
+          interchange.segment2.end = route2.length - 2;
+
+          // Exchanging nothing or whole routes does not change the solution.
+          if ((interchange.segment1.isEmpty() && interchange.segment2.isEmpty())
+              || (cutIdx1 == 0 && cutIdx2 == 0)) {
+            continue;
+          }
+
+          double excessCapacity = routeList.excessCapacity(interchange, route1, route2);
+          // Calculate objective function and check whether it is better than the current.
+          double newObjective = routeList.objective(interchange,
+              excessCapacityPenaltyCoefficient, customerUsePenaltyCoefficient, currentIteration,
+              false);
+          if (newObjective < bestObjective) {
+            // Check whether the cut customers are in the tabu list, account for aspiration.
+            if (!isSegmentExchangeTabu(interchange) ||
+                (newObjective < incumbent.length && excessCapacity == 0)) {
+              // Save the best tails to exchange so far.
+              bestInterchange = interchange.clone();
+              bestObjective = newObjective;
+            }
+          }
+
+          if (firstBestFirst && newObjective < incumbent.length && excessCapacity == 0) {
+            return new InterchangeResult(bestInterchange, bestObjective);
+          }
+        }
+      }
+    }
+    return new InterchangeResult(bestInterchange, bestObjective);
+  }
+}
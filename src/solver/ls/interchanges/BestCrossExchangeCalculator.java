@@ -0,0 +1,119 @@
+package solver.ls.interchanges;
+
+import java.util.List;
+import solver.ls.data.Interchange;
+import solver.ls.data.InterchangeResult;
+import solver.ls.data.Route;
+import solver.ls.data.RouteList;
+import solver.ls.data.Segment;
+import solver.ls.data.TabuItem;
+
+/**
+ * CROSS exchange: swaps segments of up to a given number of consecutive customers between two
+ * routes, each optionally reversed. The segment moved into this route has to start with a
+ * neighbor of the customer it is attached to, and every candidate is evaluated in constant time
+ * from the prefix data of the routes.
+ */
+public class BestCrossExchangeCalculator extends InterchangeCalculator {
+
+  private final int routeIdx1;
+  private final int maxSegmentLength;
+  private final int[][] neighborLists;
+  private final int[] routeOfCustomer;
+  private final int[] positionOfCustomer;
+  private final double[][] distances;
+
+  /**
+   * @param routeOfCustomer    route of every customer of the current solution.
+   * @param positionOfCustomer position of every customer within its route.
+   */
+  public BestCrossExchangeCalculator(RouteList routeList, RouteList incumbent,
+      double excessCapacityPenaltyCoefficient, double customerUsePenaltyCoefficient,
+      int currentIteration, List<TabuItem> shortTermMemory, boolean firstBestFirst, int routeIdx1,
+      int maxSegmentLength, double[][] distances, int[][] neighborLists, int[] routeOfCustomer,
+      int[] positionOfCustomer) {
+    super(routeList, incumbent, excessCapacityPenaltyCoefficient, customerUsePenaltyCoefficient,
+        shortTermMemory, firstBestFirst, currentIteration);
+    this.routeIdx1 = routeIdx1;
+    this.maxSegmentLength = maxSegmentLength;
+    this.distances = distances;
+    this.neighborLists = neighborLists;
+    this.routeOfCustomer = routeOfCustomer;
+    this.positionOfCustomer = positionOfCustomer;
+  }
+
+  public InterchangeResult call() {
+    // Dummy interchange, to be edited later.
+    Interchange interchange = new Interchange(
+        routeIdx1, new Segment(1, 0, false),
+        0, new Segment(1, 0, false));
+    Segment segment1 = interchange.segment1;
+    Segment segment2 = interchange.segment2;
+
+    Route route1 = routeList.routes[routeIdx1];
+
+    // Replace the segment starting at every position of this route.
+    for (int start1 = 1; start1 < route1.length; start1++) {
+      int before1 = route1.customers[start1 - 1];
+      double removedEdge = distances[before1][route1.customers[start1]];
+
+      for (int neighbor : neighborLists[before1]) {
+        // The new edge has to be shorter than the one it replaces.
+        if (distances[before1][neighbor] >= removedEdge) {
+          break;
+        }
+        if (neighbor == 0 || routeOfCustomer[neighbor] == routeIdx1) {
+          continue;
+        }
+        int routeIdx2 = routeOfCustomer[neighbor];
+        int position2 = positionOfCustomer[neighbor];
+        Route route2 = routeList.routes[routeIdx2];
+        interchange.routeIdx2 = routeIdx2;
+
+        for (int length2 = 1; length2 <= maxSegmentLength; length2++) {
+          // The neighbor comes first either way: as the start, or as the end reversed.
+          for (int orientation2 = 0; orientation2 < (length2 == 1 ? 1 : 2); orientation2++) {
+            segment2.reversed = orientation2 == 1;
+            segment2.start = segment2.reversed ? position2 - length2 + 1 : position2;
+            segment2.end = segment2.start + length2 - 1;
+            if (segment2.start < 1 || segment2.end > route2.length - 2) {
+              continue;
+            }
+
+            for (int length1 = 0; length1 <= maxSegmentLength; length1++) {
+              // Single customer moves are covered by the 0I and 1I neighborhoods.
+              if (Math.max(length1, length2) < 2 || start1 + length1 - 1 > route1.length - 2) {
+                continue;
+              }
+              segment1.start = start1;
+              segment1.end = start1 + length1 - 1;
+              for (int orientation1 = 0; orientation1 < (length1 < 2 ? 1 : 2); orientation1++) {
+                segment1.reversed = orientation1 == 1;
+
+                double excessCapacity = routeList.excessCapacity(interchange, route1, route2);
+                // Calculate objective function and check whether it is better than the current.
+                double newObjective = routeList.objective(interchange,
+                    excessCapacityPenaltyCoefficient, customerUsePenaltyCoefficient,
+                    currentIteration, false);
+                if (newObjective < bestObjective) {
+                  // Check whether the segment ends are in the tabu list, account for aspiration.
+                  if (!isSegmentExchangeTabu(interchange) ||
+                      (newObjective < incumbent.length && excessCapacity == 0)) {
+                    // Save the best segments to exchange so far.
+                    bestInterchange = interchange.clone();
+                    bestObjective = newObjective;
+                  }
+                }
+
+                if (firstBestFirst && newObjective < incumbent.length && excessCapacity == 0) {
+                  return new InterchangeResult(bestInterchange, bestObjective);
+                }
+              }
+            }
+          }
+        }
+      }
+    }
+    return new InterchangeResult(bestInterchange, bestObjective);
+  }
+}
@@ -40,4 +40,19 @@ public abstract class InterchangeCalculator implements Callable<InterchangeResul
     }
     return false;
   }
+
+  protected boolean isSegmentExchangeTabu(Interchange interchange) {
+    for (int end = 0; end < RouteList.NUM_SEGMENT_ENDS; end++) {
+      int customer = routeList.segmentEndCustomer(interchange, end);
+      if (customer < 0) {
+        continue;
+      }
+      for (TabuItem item : shortTermMemory) {
+        if (item.customer == customer) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
 }
@@ -0,0 +1,73 @@
+package solver.ls.listeners;
+
+import java.util.Arrays;
+import solver.ls.data.Route;
+import solver.ls.data.RouteList;
+
+public class IncumbentEvent {
+
+  public final Kind kind;
+  /**
+   * Total route length, in the original (not normalized) units.
+   */
+  public final double objective;
+  /**
+   * Elapsed solver time (seconds).
+   */
+  public final double time;
+  public final int iteration;
+  /**
+   * Snapshot of the routes, each starting and ending at the depot.
+   */
+  public final int[][] routes;
+
+  public IncumbentEvent(Kind kind, double objective, double time, int iteration,
+      RouteList routeList) {
+    this.kind = kind;
+    this.objective = objective;
+    this.time = time;
+    this.iteration = iteration;
+    this.routes = new int[routeList.routes.length][];
+    for (int i = 0; i < routeList.routes.length; i++) {
+      Route route = routeList.routes[i];
+      this.routes[i] = Arrays.copyOf(route.customers, route.length);
+    }
+  }
+
+  /**
+   * Formats the event as a single JSON line.
+   */
+  public String toJson() {
+    StringBuilder sb = new StringBuilder();
+    sb.append("{\"Event\": \"").append(kind.label).append("\", \"Time\": ")
+        .append(String.format("%.2f", time)).append(", \"Iteration\": ").append(iteration)
+        .append(", \"Result\": ").append(String.format("%.2f", objective))
+        .append(", \"Routes\": [");
+    for (int i = 0; i < routes.length; i++) {
+      sb.append(i == 0 ? "" : ", ").append(Arrays.toString(routes[i]));
+    }
+    return sb.append("]}").toString();
+  }
+
+  @Override
+  public String toString() {
+    return toJson();
+  }
+
+  public enum Kind {
+    /**
+     * Best solution of the current restart improved.
+     */
+    INCUMBENT("incumbent"),
+    /**
+     * Best solution overall improved.
+     */
+    BEST_INCUMBENT("bestIncumbent");
+
+    public final String label;
+
+    Kind(String label) {
+      this.label = label;
+    }
+  }
+}
@@ -0,0 +1,9 @@
+package solver.ls.listeners;
+
+public interface IncumbentListener {
+
+  /**
+   * Called on the dispatcher thread whenever the incumbent or the best incumbent improves.
+   */
+  void onImprovement(IncumbentEvent event);
+}
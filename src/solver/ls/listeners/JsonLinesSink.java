@@ -0,0 +1,59 @@
+package solver.ls.listeners;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Writes every event as a JSON line, flushing after each one so that readers see it right away.
+ */
+public class JsonLinesSink implements IncumbentListener, Closeable {
+
+  private final Writer writer;
+  private final boolean closeWriter;
+
+  private JsonLinesSink(Writer writer, boolean closeWriter) {
+    this.writer = writer;
+    this.closeWriter = closeWriter;
+  }
+
+  public static JsonLinesSink toFile(Path path) throws IOException {
+    return new JsonLinesSink(Files.newBufferedWriter(path, StandardCharsets.UTF_8), true);
+  }
+
+  public static JsonLinesSink toStream(PrintStream stream) {
+    return new JsonLinesSink(
+        new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8)), false);
+  }
+
+  public static JsonLinesSink toStdout() {
+    return toStream(System.out);
+  }
+
+  @Override
+  public synchronized void onImprovement(IncumbentEvent event) {
+    try {
+      writer.write(event.toJson());
+      writer.write(System.lineSeparator());
+      writer.flush();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    if (closeWriter) {
+      writer.close();
+    } else {
+      writer.flush();
+    }
+  }
+}
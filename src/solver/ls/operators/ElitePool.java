@@ -0,0 +1,104 @@
+package solver.ls.operators;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import solver.ls.data.RouteList;
+
+/**
+ * Bounded pool of good, mutually different feasible solutions. A solution too close to a member
+ * can only replace that member, so the pool does not fill up with copies of one local optimum.
+ */
+public class ElitePool {
+
+  private final int capacity;
+  private final double minDistance;
+  private final int numCustomers;
+  private final List<Member> members = new ArrayList<>();
+
+  /**
+   * @param capacity     most solutions kept.
+   * @param minDistance  smallest route-assignment distance between members, as a share of the
+   *                     served customers.
+   * @param numCustomers number of customers, including the depot.
+   */
+  public ElitePool(int capacity, double minDistance, int numCustomers) {
+    this.capacity = capacity;
+    this.minDistance = minDistance;
+    this.numCustomers = numCustomers;
+  }
+
+  /**
+   * Offers a feasible solution to the pool.
+   *
+   * @param solution solution with normalized length; copied if accepted.
+   * @return whether the solution was accepted.
+   */
+  public synchronized boolean offer(RouteList solution) {
+    RouteAssignment assignment = new RouteAssignment(solution, numCustomers);
+    double threshold = minDistance * assignment.numServed;
+
+    Member closest = null;
+    int closestDistance = Integer.MAX_VALUE;
+    Member worst = null;
+    for (Member member : members) {
+      int distance = member.assignment.distance(assignment);
+      if (distance < closestDistance) {
+        closest = member;
+        closestDistance = distance;
+      }
+      if (worst == null || member.solution.length > worst.solution.length) {
+        worst = member;
+      }
+    }
+
+    Member candidate = new Member(solution.clone(), assignment);
+    if (closest != null && closestDistance < threshold) {
+      // Too similar, only keep the better of the two.
+      if (solution.length < closest.solution.length) {
+        members.set(members.indexOf(closest), candidate);
+        return true;
+      }
+      return false;
+    }
+    if (members.size() < capacity) {
+      members.add(candidate);
+      return true;
+    }
+    if (solution.length < worst.solution.length) {
+      members.set(members.indexOf(worst), candidate);
+      return true;
+    }
+    return false;
+  }
+
+  public synchronized int size() {
+    return members.size();
+  }
+
+  /**
+   * Two different members chosen at random.
+   */
+  public synchronized RouteList[] pickPair(Random random) {
+    if (members.size() < 2) {
+      throw new IllegalStateException("The pool needs two members to pick a pair.");
+    }
+    int first = random.nextInt(members.size());
+    int second = random.nextInt(members.size() - 1);
+    if (second >= first) {
+      second++;
+    }
+    return new RouteList[]{members.get(first).solution, members.get(second).solution};
+  }
+
+  private static class Member {
+
+    final RouteList solution;
+    final RouteAssignment assignment;
+
+    Member(RouteList solution, RouteAssignment assignment) {
+      this.solution = solution;
+      this.assignment = assignment;
+    }
+  }
+}
@@ -0,0 +1,148 @@
+package solver.ls.operators;
+
+import java.util.ArrayList;
+import java.util.List;
+import solver.ls.data.Route;
+import solver.ls.data.RouteList;
+
+/**
+ * Explores the solutions between two good solutions: starting from the initiating solution,
+ * customers are moved one at a time into the route the guiding solution assigns them to, until
+ * both solutions agree. The best feasible solution strictly between the two is returned.
+ */
+public class PathRelinking {
+
+  private final double[][] distances;
+  private final int[] demandOfCustomer;
+  private final int vehicleCapacity;
+
+  public PathRelinking(double[][] distances, int[] demandOfCustomer, int vehicleCapacity) {
+    this.distances = distances;
+    this.demandOfCustomer = demandOfCustomer;
+    this.vehicleCapacity = vehicleCapacity;
+  }
+
+  /**
+   * Walks from the initiating to the guiding solution.
+   *
+   * @param initiating solution to start from; not modified.
+   * @param guiding    solution to move towards; not modified.
+   * @return routes of the best feasible intermediate solution, each starting and ending at the
+   * depot, or null if the path has no feasible intermediate solution.
+   */
+  public List<List<Integer>> relink(RouteList initiating, RouteList guiding) {
+    RouteAssignment from = new RouteAssignment(initiating, distances.length);
+    RouteAssignment to = new RouteAssignment(guiding, distances.length);
+    int[] match = from.matchRoutes(to);
+
+    List<List<Integer>> routes = new ArrayList<>();
+    int[] load = new int[initiating.routes.length];
+    double length = 0;
+    for (int r = 0; r < initiating.routes.length; r++) {
+      Route route = initiating.routes[r];
+      List<Integer> customerList = new ArrayList<>();
+      for (int i = 0; i < route.length; i++) {
+        customerList.add(route.customers[i]);
+        load[r] += demandOfCustomer[route.customers[i]];
+        if (i > 0) {
+          length += distances[route.customers[i - 1]][route.customers[i]];
+        }
+      }
+      routes.add(customerList);
+    }
+    int excess = 0;
+    for (int r = 0; r < load.length; r++) {
+      excess += Math.max(0, load[r] - vehicleCapacity);
+    }
+
+    // Customers whose route differs from the guiding solution, and the route they belong in.
+    int[] routeOf = from.routeOfCustomer.clone();
+    int[] target = new int[distances.length];
+    List<Integer> pending = new ArrayList<>();
+    for (int customer = 1; customer < distances.length; customer++) {
+      int guidingRoute = to.routeOfCustomer[customer];
+      target[customer] = guidingRoute >= 0 ? match[guidingRoute] : -1;
+      if (routeOf[customer] >= 0 && target[customer] >= 0
+          && routeOf[customer] != target[customer]) {
+        pending.add(customer);
+      }
+    }
+
+    List<List<Integer>> best = null;
+    double bestLength = Double.POSITIVE_INFINITY;
+    while (!pending.isEmpty()) {
+      // Pick the move that adds the least excess demand, then the least distance.
+      int bestIdx = -1;
+      int bestExcessDelta = Integer.MAX_VALUE;
+      double bestDelta = Double.POSITIVE_INFINITY;
+      int bestPosition = -1;
+      for (int idx = 0; idx < pending.size(); idx++) {
+        int customer = pending.get(idx);
+        int source = routeOf[customer];
+        int destination = target[customer];
+        int demand = demandOfCustomer[customer];
+        int excessDelta = Math.max(0, load[source] - demand - vehicleCapacity)
+            - Math.max(0, load[source] - vehicleCapacity)
+            + Math.max(0, load[destination] + demand - vehicleCapacity)
+            - Math.max(0, load[destination] - vehicleCapacity);
+        if (excessDelta > bestExcessDelta) {
+          continue;
+        }
+
+        List<Integer> sourceRoute = routes.get(source);
+        int i = sourceRoute.indexOf(customer);
+        int previous = sourceRoute.get(i - 1);
+        int next = sourceRoute.get(i + 1);
+        double removal = distances[previous][next] - distances[previous][customer]
+            - distances[customer][next];
+
+        List<Integer> destinationRoute = routes.get(destination);
+        double[] row = distances[customer];
+        double insertion = Double.POSITIVE_INFINITY;
+        int position = -1;
+        for (int j = 1; j < destinationRoute.size(); j++) {
+          int a = destinationRoute.get(j - 1);
+          int b = destinationRoute.get(j);
+          double cost = row[a] + row[b] - distances[a][b];
+          if (cost < insertion) {
+            insertion = cost;
+            position = j;
+          }
+        }
+
+        double delta = removal + insertion;
+        if (excessDelta < bestExcessDelta || delta < bestDelta) {
+          bestIdx = idx;
+          bestExcessDelta = excessDelta;
+          bestDelta = delta;
+          bestPosition = position;
+        }
+      }
+
+      // Do the move.
+      int customer = pending.get(bestIdx);
+      pending.set(bestIdx, pending.get(pending.size() - 1));
+      pending.remove(pending.size() - 1);
+      int source = routeOf[customer];
+      int destination = target[customer];
+      routes.get(source).remove((Integer) customer);
+      routes.get(destination).add(bestPosition, customer);
+      load[source] -= demandOfCustomer[customer];
+      load[destination] += demandOfCustomer[customer];
+      routeOf[customer] = destination;
+      excess += bestExcessDelta;
+      length += bestDelta;
+
+      // The guiding solution itself is not a new solution.
+      if (!pending.isEmpty() && excess == 0 && length < bestLength) {
+        bestLength = length;
+        best = new ArrayList<>();
+        for (List<Integer> route : routes) {
+          best.add(new ArrayList<>(route));
+        }
+      }
+    }
+
+    return best;
+  }
+}
@@ -0,0 +1,100 @@
+package solver.ls.operators;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import solver.ls.data.Route;
+import solver.ls.data.RouteList;
+
+/**
+ * Which route serves every customer of a solution. Two solutions are compared by matching their
+ * routes by the customers they share, ignoring the order of the routes and of the customers
+ * within them.
+ */
+public class RouteAssignment {
+
+  /**
+   * Route of every customer, -1 for customers the solution does not serve.
+   */
+  public final int[] routeOfCustomer;
+  public final int numRoutes;
+  public final int numServed;
+
+  public RouteAssignment(RouteList solution, int numCustomers) {
+    routeOfCustomer = new int[numCustomers];
+    Arrays.fill(routeOfCustomer, -1);
+    int served = 0;
+    for (int r = 0; r < solution.routes.length; r++) {
+      Route route = solution.routes[r];
+      for (int i = 1; i < route.length - 1; i++) {
+        routeOfCustomer[route.customers[i]] = r;
+        served++;
+      }
+    }
+    numRoutes = solution.routes.length;
+    numServed = served;
+  }
+
+  /**
+   * Matches the routes of the other solution to the routes of this one, greedily by the number of
+   * shared customers.
+   *
+   * @return for every route of the other solution, the matched route of this solution.
+   */
+  public int[] matchRoutes(RouteAssignment other) {
+    int[][] overlap = new int[other.numRoutes][numRoutes];
+    for (int customer = 0; customer < routeOfCustomer.length; customer++) {
+      if (routeOfCustomer[customer] >= 0 && other.routeOfCustomer[customer] >= 0) {
+        overlap[other.routeOfCustomer[customer]][routeOfCustomer[customer]]++;
+      }
+    }
+
+    List<int[]> pairs = new ArrayList<>();
+    for (int otherRoute = 0; otherRoute < other.numRoutes; otherRoute++) {
+      for (int route = 0; route < numRoutes; route++) {
+        if (overlap[otherRoute][route] > 0) {
+          pairs.add(new int[]{otherRoute, route, overlap[otherRoute][route]});
+        }
+      }
+    }
+    pairs.sort(Comparator.comparingInt((int[] pair) -> pair[2]).reversed());
+
+    int[] match = new int[other.numRoutes];
+    Arrays.fill(match, -1);
+    boolean[] taken = new boolean[numRoutes];
+    for (int[] pair : pairs) {
+      if (match[pair[0]] < 0 && !taken[pair[1]]) {
+        match[pair[0]] = pair[1];
+        taken[pair[1]] = true;
+      }
+    }
+    // Routes without shared customers are matched in order.
+    int free = 0;
+    for (int otherRoute = 0; otherRoute < other.numRoutes; otherRoute++) {
+      if (match[otherRoute] < 0) {
+        while (free < numRoutes && taken[free]) {
+          free++;
+        }
+        match[otherRoute] = free < numRoutes ? free++ : -1;
+      }
+    }
+    return match;
+  }
+
+  /**
+   * Number of customers that would have to change routes to turn this solution's route
+   * assignment into the other one's.
+   */
+  public int distance(RouteAssignment other) {
+    int[] match = matchRoutes(other);
+    int distance = 0;
+    for (int customer = 0; customer < routeOfCustomer.length; customer++) {
+      int otherRoute = other.routeOfCustomer[customer];
+      if (otherRoute >= 0 && routeOfCustomer[customer] != match[otherRoute]) {
+        distance++;
+      }
+    }
+    return distance;
+  }
+}
@@ -0,0 +1,267 @@
+package solver.ls.operators;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import solver.ls.data.Route;
+
+/**
+ * Improves the order of customers within a single route with 2-opt and Or-opt moves. Candidate
+ * moves are restricted to the neighbor lists of the customers, and customers whose surroundings
+ * did not change since they last failed to improve are skipped (don't-look bits).
+ *
+ * <p>Not thread-safe; every solver owns its optimizer.
+ */
+public class RouteOptimizer {
+
+  /**
+   * Longest segment moved by Or-opt.
+   */
+  private static final int MAX_SEGMENT_LENGTH = 3;
+  /**
+   * Smallest gain that counts as an improvement.
+   */
+  private static final double EPSILON = 1e-9;
+
+  private final double[][] distances;
+  private final int[][] neighborLists;
+  /**
+   * Position of every customer in the route being optimized.
+   */
+  private final int[] position;
+  /**
+   * Marks the customers of the route being optimized with the current stamp.
+   */
+  private final int[] routeStamp;
+  /**
+   * Customers that do not need to be looked at until a neighboring edge changes. Customers
+   * without the bit are waiting in the queue.
+   */
+  private final boolean[] dontLook;
+  private final ArrayDeque<Integer> queue = new ArrayDeque<>();
+  private int stamp = 0;
+
+  public RouteOptimizer(double[][] distances, int[][] neighborLists) {
+    this.distances = distances;
+    this.neighborLists = neighborLists;
+    this.position = new int[distances.length];
+    this.routeStamp = new int[distances.length];
+    this.dontLook = new boolean[distances.length];
+  }
+
+  /**
+   * Improves the route in place until no move improves it or the deadline passes. The demand of
+   * the route does not change.
+   *
+   * @param route         route to optimize, starting and ending at the depot.
+   * @param deadlineNanos value of {@link System#nanoTime()} to stop at.
+   * @return change of the route length, zero or negative.
+   */
+  public double optimize(Route route, long deadlineNanos) {
+    if (route.length < 5) {
+      // Fewer than three customers have only one order up to reversal.
+      return 0;
+    }
+
+    stamp++;
+    queue.clear();
+    for (int i = 1; i < route.length - 1; i++) {
+      int customer = route.customers[i];
+      routeStamp[customer] = stamp;
+      dontLook[customer] = false;
+      queue.add(customer);
+    }
+    updatePositions(route);
+
+    double delta = 0;
+    while (!queue.isEmpty() && System.nanoTime() < deadlineNanos) {
+      int customer = queue.poll();
+      dontLook[customer] = true;
+      double gain = improveTwoOpt(route, customer);
+      if (gain <= 0) {
+        gain = improveOrOpt(route, customer);
+      }
+      if (gain > 0) {
+        delta -= gain;
+        activate(customer);
+      }
+    }
+
+    return delta;
+  }
+
+  /**
+   * Finds and applies the first improving 2-opt move involving an edge of the customer.
+   *
+   * @return gain of the applied move, or 0 if there is none.
+   */
+  private double improveTwoOpt(Route route, int customer) {
+    int[] r = route.customers;
+    int p = position[customer];
+    double succEdge = distances[customer][r[p + 1]];
+    double predEdge = distances[r[p - 1]][customer];
+
+    for (int neighbor : neighborLists[customer]) {
+      double newEdge = distances[customer][neighbor];
+      if (newEdge >= succEdge && newEdge >= predEdge) {
+        // Neighbors are sorted, so no later neighbor can improve either.
+        break;
+      }
+      if (!inRoute(neighbor)) {
+        continue;
+      }
+      int q = position[neighbor];
+
+      // Replace the edges leaving the two customers.
+      if (newEdge < succEdge) {
+        int i = Math.min(p, q);
+        int j = Math.max(p, q);
+        double gain = twoOptGain(r, i, j);
+        if (gain > EPSILON) {
+          applyTwoOpt(route, i, j);
+          return gain;
+        }
+      }
+      // Replace the edges entering the two customers.
+      if (newEdge < predEdge) {
+        int i = Math.min(p, q) - 1;
+        int j = Math.max(p, q) - 1;
+        double gain = twoOptGain(r, i, j);
+        if (gain > EPSILON) {
+          applyTwoOpt(route, i, j);
+          return gain;
+        }
+      }
+    }
+
+    return 0;
+  }
+
+  private double twoOptGain(int[] r, int i, int j) {
+    if (j - i < 2) {
+      return 0;
+    }
+    return distances[r[i]][r[i + 1]] + distances[r[j]][r[j + 1]]
+        - distances[r[i]][r[j]] - distances[r[i + 1]][r[j + 1]];
+  }
+
+  /**
+   * Reverses the customers between positions i + 1 and j.
+   */
+  private void applyTwoOpt(Route route, int i, int j) {
+    int[] r = route.customers;
+    activate(r[i]);
+    activate(r[i + 1]);
+    activate(r[j]);
+    activate(r[j + 1]);
+    for (int a = i + 1, b = j; a < b; a++, b--) {
+      int tmp = r[a];
+      r[a] = r[b];
+      r[b] = tmp;
+    }
+    updatePositions(route);
+  }
+
+  /**
+   * Finds and applies the first improving move of a segment starting or ending at the customer
+   * next to one of its neighbors.
+   *
+   * @return gain of the applied move, or 0 if there is none.
+   */
+  private double improveOrOpt(Route route, int customer) {
+    int[] r = route.customers;
+    int p = position[customer];
+    int last = route.length - 2;
+
+    for (int segmentLength = 1; segmentLength <= MAX_SEGMENT_LENGTH; segmentLength++) {
+      // Segments starting and ending at the customer.
+      for (int side = 0; side < (segmentLength == 1 ? 1 : 2); side++) {
+        int start = side == 0 ? p : p - segmentLength + 1;
+        int end = start + segmentLength - 1;
+        if (start < 1 || end > last) {
+          continue;
+        }
+        double removalGain = distances[r[start - 1]][r[start]] + distances[r[end]][r[end + 1]]
+            - distances[r[start - 1]][r[end + 1]];
+
+        for (int neighbor : neighborLists[customer]) {
+          if (distances[customer][neighbor] >= removalGain) {
+            break;
+          }
+          if (!inRoute(neighbor)) {
+            continue;
+          }
+          int q = position[neighbor];
+          // Try the gaps on both sides of the neighbor.
+          for (int gap : new int[]{q, q - 1}) {
+            if (gap >= start - 1 && gap <= end) {
+              continue;
+            }
+            int a = r[gap];
+            int b = r[gap + 1];
+            double forward = distances[a][r[start]] + distances[r[end]][b];
+            double backward = distances[a][r[end]] + distances[r[start]][b];
+            double insertionCost = Math.min(forward, backward) - distances[a][b];
+            double gain = removalGain - insertionCost;
+            if (gain > EPSILON) {
+              applyOrOpt(route, start, end, gap, backward < forward);
+              return gain;
+            }
+          }
+        }
+      }
+    }
+
+    return 0;
+  }
+
+  /**
+   * Moves the segment between positions start and end to the gap after position gap.
+   */
+  private void applyOrOpt(Route route, int start, int end, int gap, boolean reversed) {
+    int[] r = route.customers;
+    activate(r[start - 1]);
+    activate(r[end + 1]);
+    activate(r[gap]);
+    activate(r[gap + 1]);
+
+    int[] segment = Arrays.copyOfRange(r, start, end + 1);
+    if (reversed) {
+      for (int a = 0, b = segment.length - 1; a < b; a++, b--) {
+        int tmp = segment[a];
+        segment[a] = segment[b];
+        segment[b] = tmp;
+      }
+    }
+    int segmentLength = segment.length;
+    if (gap < start) {
+      // Shift the customers between the gap and the segment to the right.
+      System.arraycopy(r, gap + 1, r, gap + 1 + segmentLength, start - gap - 1);
+      System.arraycopy(segment, 0, r, gap + 1, segmentLength);
+    } else {
+      // Shift the customers between the segment and the gap to the left.
+      System.arraycopy(r, end + 1, r, start, gap - end);
+      System.arraycopy(segment, 0, r, gap - segmentLength + 1, segmentLength);
+    }
+    updatePositions(route);
+  }
+
+  private boolean inRoute(int customer) {
+    return customer != 0 && routeStamp[customer] == stamp;
+  }
+
+  /**
+   * Clears the don't-look bit of a customer whose surroundings changed.
+   */
+  private void activate(int customer) {
+    if (customer != 0 && dontLook[customer]) {
+      dontLook[customer] = false;
+      queue.add(customer);
+    }
+  }
+
+  private void updatePositions(Route route) {
+    for (int i = 1; i < route.length - 1; i++) {
+      position[route.customers[i]] = i;
+    }
+  }
+}
@@ -0,0 +1,105 @@
+package solver.ls.operators;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import solver.ls.data.Route;
+import solver.ls.data.RouteList;
+
+/**
+ * Distinct feasible routes seen by the search, for recombination by set partitioning. Routes
+ * with the same customers are kept once, in their shortest order. When the pool is full, the
+ * oldest route is dropped.
+ *
+ * <p>Thread-safe: the search adds routes while a background thread takes snapshots.
+ */
+public class RoutePool {
+
+  /**
+   * A route of the pool.
+   */
+  public static class PooledRoute {
+
+    /**
+     * Customers in visiting order, starting and ending at the depot.
+     */
+    public final int[] customers;
+    /**
+     * Length of the route.
+     */
+    public final double cost;
+
+    PooledRoute(int[] customers, double cost) {
+      this.customers = customers;
+      this.cost = cost;
+    }
+
+    /**
+     * Number of customers, without the depot.
+     */
+    public int size() {
+      return customers.length - 2;
+    }
+  }
+
+  private final Map<BitSet, PooledRoute> routes;
+  private final int vehicleCapacity;
+  private final int[] demandOfCustomer;
+
+  public RoutePool(int capacity, int[] demandOfCustomer, int vehicleCapacity) {
+    this.demandOfCustomer = demandOfCustomer;
+    this.vehicleCapacity = vehicleCapacity;
+    this.routes = new LinkedHashMap<>() {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<BitSet, PooledRoute> eldest) {
+        return size() > capacity;
+      }
+    };
+  }
+
+  /**
+   * Adds the non-empty routes of a solution that fit into a vehicle.
+   *
+   * @param solution  solution whose routes to add; not modified.
+   * @param distances distances the costs are measured in.
+   */
+  public synchronized void addAll(RouteList solution, double[][] distances) {
+    for (Route route : solution.routes) {
+      if (route.length <= 2 || route.demand > vehicleCapacity) {
+        continue;
+      }
+      add(route.customers, route.length, route.calculateRouteLength(distances));
+    }
+  }
+
+  private void add(int[] walk, int length, double cost) {
+    BitSet key = new BitSet();
+    int demand = 0;
+    for (int i = 1; i < length - 1; i++) {
+      key.set(walk[i]);
+      demand += demandOfCustomer[walk[i]];
+    }
+    if (demand > vehicleCapacity) {
+      return;
+    }
+    PooledRoute existing = routes.get(key);
+    if (existing == null || cost < existing.cost - 1e-9) {
+      int[] customers = new int[length];
+      System.arraycopy(walk, 0, customers, 0, length);
+      routes.put(key, new PooledRoute(customers, cost));
+    }
+  }
+
+  public synchronized int size() {
+    return routes.size();
+  }
+
+  /**
+   * Copy of the routes currently in the pool.
+   */
+  public synchronized List<PooledRoute> snapshot() {
+    return new ArrayList<>(routes.values());
+  }
+}
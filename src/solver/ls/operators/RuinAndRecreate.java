@@ -0,0 +1,253 @@
+package solver.ls.operators;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import solver.ls.data.Route;
+import solver.ls.data.RouteList;
+
+/**
+ * Large neighborhood move: removes a related subset of customers from a solution and reinserts
+ * them with regret-2 cheapest insertion. Much cheaper than constructing a new solution, while
+ * keeping the parts of the solution that were not removed.
+ */
+public class RuinAndRecreate {
+
+  /**
+   * How the removed customers are chosen.
+   */
+  public enum Ruin {
+    /**
+     * Customers chosen uniformly at random.
+     */
+    RANDOM,
+    /**
+     * A random customer and the customers closest to it.
+     */
+    RADIAL,
+    /**
+     * Whole routes, starting from a random customer's route and continuing with the routes of its
+     * nearest customers.
+     */
+    ROUTE
+  }
+
+  private final double[][] distances;
+  private final int[] demandOfCustomer;
+  private final int vehicleCapacity;
+
+  public RuinAndRecreate(double[][] distances, int[] demandOfCustomer, int vehicleCapacity) {
+    this.distances = distances;
+    this.demandOfCustomer = demandOfCustomer;
+    this.vehicleCapacity = vehicleCapacity;
+  }
+
+  /**
+   * Ruins and recreates a solution with a random ruin strategy.
+   *
+   * @param solution    solution to start from; not modified.
+   * @param numRemoved  number of customers to remove.
+   * @param random      random number generator.
+   * @return routes of the new solution, each starting and ending at the depot.
+   */
+  public List<List<Integer>> apply(RouteList solution, int numRemoved, Random random) {
+    Ruin[] ruins = Ruin.values();
+    return apply(solution, ruins[random.nextInt(ruins.length)], numRemoved, random);
+  }
+
+  /**
+   * Ruins and recreates a solution with the given ruin strategy.
+   */
+  public List<List<Integer>> apply(RouteList solution, Ruin ruin, int numRemoved,
+      Random random) {
+    List<List<Integer>> routes = new ArrayList<>();
+    List<Integer> customers = new ArrayList<>();
+    int[] routeOf = new int[distances.length];
+    for (int r = 0; r < solution.routes.length; r++) {
+      Route route = solution.routes[r];
+      List<Integer> customerList = new ArrayList<>();
+      for (int i = 0; i < route.length; i++) {
+        customerList.add(route.customers[i]);
+        if (i > 0 && i < route.length - 1) {
+          customers.add(route.customers[i]);
+          routeOf[route.customers[i]] = r;
+        }
+      }
+      routes.add(customerList);
+    }
+    if (customers.isEmpty()) {
+      return routes;
+    }
+
+    boolean[] removed = new boolean[distances.length];
+    List<Integer> unassigned = new ArrayList<>();
+    numRemoved = Math.min(numRemoved, customers.size());
+    int seed = customers.get(random.nextInt(customers.size()));
+
+    switch (ruin) {
+      case RANDOM:
+        for (int i = 0; i < numRemoved; i++) {
+          // Partial Fisher-Yates shuffle.
+          int j = i + random.nextInt(customers.size() - i);
+          int customer = customers.get(j);
+          customers.set(j, customers.get(i));
+          customers.set(i, customer);
+          removed[customer] = true;
+          unassigned.add(customer);
+        }
+        break;
+      case RADIAL:
+        for (int customer : byDistanceTo(seed, customers)) {
+          if (unassigned.size() >= numRemoved) {
+            break;
+          }
+          removed[customer] = true;
+          unassigned.add(customer);
+        }
+        break;
+      case ROUTE:
+        boolean[] ruinedRoute = new boolean[routes.size()];
+        for (int customer : byDistanceTo(seed, customers)) {
+          if (unassigned.size() >= numRemoved) {
+            break;
+          }
+          int r = routeOf[customer];
+          if (ruinedRoute[r]) {
+            continue;
+          }
+          ruinedRoute[r] = true;
+          List<Integer> route = routes.get(r);
+          for (int i = 1; i < route.size() - 1; i++) {
+            removed[route.get(i)] = true;
+            unassigned.add(route.get(i));
+          }
+        }
+        break;
+      default:
+        throw new IllegalArgumentException("Unknown ruin " + ruin);
+    }
+
+    for (List<Integer> route : routes) {
+      route.removeIf(customer -> removed[customer]);
+    }
+    recreate(routes, unassigned);
+    return routes;
+  }
+
+  private List<Integer> byDistanceTo(int seed, List<Integer> customers) {
+    double[] row = distances[seed];
+    List<Integer> sorted = new ArrayList<>(customers);
+    sorted.sort(Comparator.comparingDouble(customer -> row[customer]));
+    return sorted;
+  }
+
+  /**
+   * Inserts the customers with regret-2 insertion: the customer that loses the most by not being
+   * inserted into its best route goes first. Routes that stay within capacity are preferred; if a
+   * customer fits nowhere, it goes to its cheapest position and the search restores feasibility.
+   */
+  private void recreate(List<List<Integer>> routes, List<Integer> unassigned) {
+    int numRoutes = routes.size();
+    int[] load = new int[numRoutes];
+    for (int r = 0; r < numRoutes; r++) {
+      for (int customer : routes.get(r)) {
+        load[r] += demandOfCustomer[customer];
+      }
+    }
+
+    // Cheapest insertion of every unassigned customer into every route, and its position.
+    int numUnassigned = unassigned.size();
+    double[][] cost = new double[numUnassigned][numRoutes];
+    int[][] position = new int[numUnassigned][numRoutes];
+    for (int u = 0; u < numUnassigned; u++) {
+      for (int r = 0; r < numRoutes; r++) {
+        updateInsertion(routes.get(r), unassigned.get(u), cost[u], position[u], r);
+      }
+    }
+
+    boolean[] inserted = new boolean[numUnassigned];
+    for (int step = 0; step < numUnassigned; step++) {
+      int bestU = -1;
+      int bestRoute = -1;
+      double bestRegret = Double.NEGATIVE_INFINITY;
+      boolean bestFeasible = false;
+
+      for (int u = 0; u < numUnassigned; u++) {
+        if (inserted[u]) {
+          continue;
+        }
+        int demand = demandOfCustomer[unassigned.get(u)];
+        int first = -1;
+        double firstCost = Double.POSITIVE_INFINITY;
+        double secondCost = Double.POSITIVE_INFINITY;
+        for (int r = 0; r < numRoutes; r++) {
+          if (load[r] + demand > vehicleCapacity) {
+            continue;
+          }
+          if (cost[u][r] < firstCost) {
+            secondCost = firstCost;
+            firstCost = cost[u][r];
+            first = r;
+          } else if (cost[u][r] < secondCost) {
+            secondCost = cost[u][r];
+          }
+        }
+        boolean feasible = first >= 0;
+        if (!feasible) {
+          // Fits nowhere, take the cheapest route regardless of capacity.
+          for (int r = 0; r < numRoutes; r++) {
+            if (first < 0 || cost[u][r] < cost[u][first]) {
+              first = r;
+            }
+          }
+        }
+        // A customer with a single feasible route has to be inserted before it fills up.
+        double regret = feasible ? secondCost - firstCost : 0;
+        boolean better = bestU < 0 || (feasible && !bestFeasible);
+        if (!better && feasible == bestFeasible) {
+          // Break ties by demand, large customers are harder to fit later.
+          better = regret > bestRegret
+              || (regret == bestRegret && demand > demandOfCustomer[unassigned.get(bestU)]);
+        }
+        if (better) {
+          bestU = u;
+          bestRoute = first;
+          bestRegret = regret;
+          bestFeasible = feasible;
+        }
+      }
+
+      int customer = unassigned.get(bestU);
+      routes.get(bestRoute).add(position[bestU][bestRoute], customer);
+      load[bestRoute] += demandOfCustomer[customer];
+      inserted[bestU] = true;
+
+      // Only insertions into the changed route have to be recalculated.
+      for (int u = 0; u < numUnassigned; u++) {
+        if (!inserted[u]) {
+          updateInsertion(routes.get(bestRoute), unassigned.get(u), cost[u], position[u],
+              bestRoute);
+        }
+      }
+    }
+  }
+
+  private void updateInsertion(List<Integer> route, int customer, double[] cost, int[] position,
+      int routeIdx) {
+    double[] row = distances[customer];
+    double bestCost = Double.POSITIVE_INFINITY;
+    int bestPosition = 1;
+    for (int i = 1; i < route.size(); i++) {
+      int previous = route.get(i - 1);
+      int next = route.get(i);
+      double insertionCost = row[previous] + row[next] - distances[previous][next];
+      if (insertionCost < bestCost) {
+        bestCost = insertionCost;
+        bestPosition = i;
+      }
+    }
+    cost[routeIdx] = bestCost;
+    position[routeIdx] = bestPosition;
+  }
+}
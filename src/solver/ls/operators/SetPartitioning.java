@@ -0,0 +1,170 @@
+package solver.ls.operators;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import solver.ls.operators.RoutePool.PooledRoute;
+
+/**
+ * Chooses routes from a pool that serve every customer exactly once with the fewest distance,
+ * by depth-first branch-and-bound. Every node branches on the uncovered customer contained in
+ * the fewest routes. Nodes are pruned with a bound that charges every uncovered customer its
+ * cheapest share of a route, which is the route cost divided by the number of its customers.
+ * The search stops at a deadline, so the result is not necessarily optimal.
+ */
+public class SetPartitioning {
+
+  private final int[] customers;
+  private final int maxRoutes;
+  private final int numCustomers;
+
+  /**
+   * @param customers    customers to serve, without the depot.
+   * @param numCustomers number of customers, including the depot.
+   * @param maxRoutes    most routes a solution may use.
+   */
+  public SetPartitioning(int[] customers, int numCustomers, int maxRoutes) {
+    this.customers = customers;
+    this.numCustomers = numCustomers;
+    this.maxRoutes = maxRoutes;
+  }
+
+  /**
+   * Searches for a partition shorter than the given bound.
+   *
+   * @param routes        candidate routes.
+   * @param upperBound    length to beat, usually the incumbent's.
+   * @param deadlineNanos value of {@link System#nanoTime()} to stop at.
+   * @return indices of the chosen routes, or null if no shorter partition was found.
+   */
+  public int[] solve(List<PooledRoute> routes, double upperBound, long deadlineNanos) {
+    return new Search(routes, upperBound, deadlineNanos).run();
+  }
+
+  private class Search {
+
+    private final List<PooledRoute> routes;
+    private final long deadlineNanos;
+    /**
+     * Routes containing every customer, cheapest share first.
+     */
+    private final int[][] routesOf;
+    /**
+     * Cheapest share of a route of every customer.
+     */
+    private final double[] minShare;
+    /**
+     * Customers by the number of routes containing them, fewest first.
+     */
+    private final int[] branchOrder;
+    private final boolean[] covered;
+    private final List<Integer> chosen = new ArrayList<>();
+    private double bestCost;
+    private int[] best = null;
+    private long nodes = 0;
+    private boolean timedOut = false;
+
+    Search(List<PooledRoute> routes, double upperBound, long deadlineNanos) {
+      this.routes = routes;
+      this.deadlineNanos = deadlineNanos;
+      this.bestCost = upperBound - 1e-9;
+
+      List<List<Integer>> lists = new ArrayList<>();
+      for (int c = 0; c < numCustomers; c++) {
+        lists.add(new ArrayList<>());
+      }
+      for (int r = 0; r < routes.size(); r++) {
+        PooledRoute route = routes.get(r);
+        for (int i = 1; i < route.customers.length - 1; i++) {
+          lists.get(route.customers[i]).add(r);
+        }
+      }
+      routesOf = new int[numCustomers][];
+      minShare = new double[numCustomers];
+      for (int c : customers) {
+        List<Integer> list = lists.get(c);
+        list.sort(Comparator.comparingDouble(r -> share(routes.get(r))));
+        routesOf[c] = list.stream().mapToInt(Integer::intValue).toArray();
+        minShare[c] = list.isEmpty() ? Double.POSITIVE_INFINITY : share(routes.get(list.get(0)));
+      }
+      branchOrder = Arrays.stream(customers).boxed()
+          .sorted(Comparator.comparingInt(c -> routesOf[c].length))
+          .mapToInt(Integer::intValue).toArray();
+      covered = new boolean[numCustomers];
+    }
+
+    int[] run() {
+      double bound = 0;
+      for (int c : customers) {
+        bound += minShare[c];
+      }
+      if (bound < bestCost) {
+        branch(0, 0, bound);
+      }
+      return best;
+    }
+
+    private void branch(int next, double cost, double bound) {
+      if ((++nodes & 1023) == 0 && System.nanoTime() > deadlineNanos) {
+        timedOut = true;
+      }
+      if (timedOut) {
+        return;
+      }
+      while (next < branchOrder.length && covered[branchOrder[next]]) {
+        next++;
+      }
+      if (next == branchOrder.length) {
+        bestCost = cost;
+        best = chosen.stream().mapToInt(Integer::intValue).toArray();
+        return;
+      }
+      if (chosen.size() >= maxRoutes) {
+        return;
+      }
+
+      for (int r : routesOf[branchOrder[next]]) {
+        PooledRoute route = routes.get(r);
+        if (!fits(route)) {
+          continue;
+        }
+        // The shares of the covered customers are replaced by the route's cost.
+        double newBound = bound + route.cost;
+        for (int i = 1; i < route.customers.length - 1; i++) {
+          newBound -= minShare[route.customers[i]];
+        }
+        if (newBound >= bestCost) {
+          continue;
+        }
+        setCovered(route, true);
+        chosen.add(r);
+        branch(next + 1, cost + route.cost, newBound);
+        chosen.remove(chosen.size() - 1);
+        setCovered(route, false);
+        if (timedOut) {
+          return;
+        }
+      }
+    }
+
+    private boolean fits(PooledRoute route) {
+      for (int i = 1; i < route.customers.length - 1; i++) {
+        if (covered[route.customers[i]]) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    private void setCovered(PooledRoute route, boolean value) {
+      for (int i = 1; i < route.customers.length - 1; i++) {
+        covered[route.customers[i]] = value;
+      }
+    }
+
+    private double share(PooledRoute route) {
+      return route.cost / route.size();
+    }
+  }
+}
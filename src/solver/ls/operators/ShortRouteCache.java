@@ -0,0 +1,166 @@
+package solver.ls.operators;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import solver.ls.data.Route;
+
+/**
+ * Optimal visiting orders of short routes, computed with the Held-Karp dynamic program and
+ * cached by the set of customers. The same customer sets come back often during the search and
+ * across restarts, so most lookups skip the dynamic program.
+ *
+ * <p>Thread-safe; the least recently used orders are dropped once the cache is full.
+ */
+public class ShortRouteCache {
+
+  /**
+   * Longest route, in customers, that is ordered exactly.
+   */
+  public static final int MAX_CUSTOMERS = 8;
+  /**
+   * Smallest gain that counts as an improvement.
+   */
+  private static final double EPSILON = 1e-9;
+
+  /**
+   * Optimal order of a set of customers and its length.
+   */
+  public static class OptimalRoute {
+
+    /**
+     * Customers in the optimal order, without the depot.
+     */
+    public final int[] order;
+    public final double cost;
+
+    OptimalRoute(int[] order, double cost) {
+      this.order = order;
+      this.cost = cost;
+    }
+  }
+
+  private final double[][] distances;
+  private final Map<BitSet, OptimalRoute> cache;
+
+  public ShortRouteCache(double[][] distances, int capacity) {
+    this.distances = distances;
+    this.cache = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<BitSet, OptimalRoute> eldest) {
+        return size() > capacity;
+      }
+    });
+  }
+
+  /**
+   * Whether the route is short enough to be ordered exactly, and long enough to have more than
+   * one order up to reversal.
+   */
+  public boolean covers(Route route) {
+    int size = route.length - 2;
+    return size >= 3 && size <= MAX_CUSTOMERS;
+  }
+
+  /**
+   * Puts the customers of a covered route into their optimal order.
+   *
+   * @param route route starting and ending at the depot; reordered in place.
+   * @return change of the route length, zero or negative.
+   */
+  public double reorder(Route route) {
+    int size = route.length - 2;
+    int[] customers = new int[size];
+    System.arraycopy(route.customers, 1, customers, 0, size);
+    OptimalRoute optimal = get(customers);
+
+    double current = route.calculateRouteLength(distances);
+    if (optimal.cost >= current - EPSILON) {
+      return 0;
+    }
+    System.arraycopy(optimal.order, 0, route.customers, 1, size);
+    return optimal.cost - current;
+  }
+
+  /**
+   * Optimal order of the given customers, from the cache if possible.
+   */
+  public OptimalRoute get(int[] customers) {
+    BitSet key = new BitSet();
+    for (int customer : customers) {
+      key.set(customer);
+    }
+    OptimalRoute optimal = cache.get(key);
+    if (optimal == null) {
+      optimal = solve(customers);
+      cache.put(key, optimal);
+    }
+    return optimal;
+  }
+
+  public int size() {
+    return cache.size();
+  }
+
+  /**
+   * Held-Karp: the shortest path from the depot through every subset of the customers, ending at
+   * each of them, extended one customer at a time.
+   */
+  private OptimalRoute solve(int[] customers) {
+    int k = customers.length;
+    int full = (1 << k) - 1;
+    double[][] best = new double[1 << k][k];
+    int[][] previous = new int[1 << k][k];
+    for (double[] row : best) {
+      Arrays.fill(row, Double.POSITIVE_INFINITY);
+    }
+    for (int i = 0; i < k; i++) {
+      best[1 << i][i] = distances[0][customers[i]];
+      previous[1 << i][i] = -1;
+    }
+
+    for (int mask = 1; mask <= full; mask++) {
+      for (int last = 0; last < k; last++) {
+        double length = best[mask][last];
+        if (Double.isInfinite(length)) {
+          continue;
+        }
+        double[] row = distances[customers[last]];
+        for (int next = 0; next < k; next++) {
+          if ((mask & (1 << next)) != 0) {
+            continue;
+          }
+          int extended = mask | (1 << next);
+          double candidate = length + row[customers[next]];
+          if (candidate < best[extended][next]) {
+            best[extended][next] = candidate;
+            previous[extended][next] = last;
+          }
+        }
+      }
+    }
+
+    // Close the tour at the depot.
+    int last = 0;
+    double cost = Double.POSITIVE_INFINITY;
+    for (int i = 0; i < k; i++) {
+      double candidate = best[full][i] + distances[customers[i]][0];
+      if (candidate < cost) {
+        cost = candidate;
+        last = i;
+      }
+    }
+
+    int[] order = new int[k];
+    int mask = full;
+    for (int position = k - 1; position >= 0; position--) {
+      order[position] = customers[last];
+      int before = previous[mask][last];
+      mask &= ~(1 << last);
+      last = before;
+    }
+    return new OptimalRoute(order, cost);
+  }
+}
@@ -0,0 +1,269 @@
+package solver.ls.packing;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Fewest bins of a fixed capacity that hold a set of items. Cheap lower bounds are tried first
+ * (the total size bound L1, then the Martello-Toth bound L2), and a branch-and-bound only runs if
+ * they do not meet the first-fit decreasing packing. Results are memoized by the sorted item
+ * sizes, since many sets share the same multiset of sizes.
+ *
+ * <p>Thread-safe.
+ */
+public class BinPacking {
+
+  /**
+   * Nodes the branch-and-bound may visit before it settles for the lower bound, which keeps the
+   * result a valid lower bound.
+   */
+  private static final int MAX_NODES = 10000;
+
+  private final int capacity;
+  private final Map<Key, Integer> cache = new ConcurrentHashMap<>();
+
+  public BinPacking(int capacity) {
+    this.capacity = capacity;
+  }
+
+  /**
+   * Lower bound on the number of bins, exact unless the branch-and-bound runs out of nodes.
+   *
+   * @param sizes item sizes; not modified.
+   */
+  public int minBins(int[] sizes) {
+    int[] sorted = sizes.clone();
+    Arrays.sort(sorted);
+    if (sorted.length > 0 && sorted[sorted.length - 1] > capacity) {
+      throw new IllegalArgumentException("An item does not fit into an empty bin.");
+    }
+    return cache.computeIfAbsent(new Key(sorted), key -> solve(key.sizes));
+  }
+
+  /**
+   * Number of distinct size multisets solved so far.
+   */
+  public int cacheSize() {
+    return cache.size();
+  }
+
+  private int solve(int[] ascending) {
+    int lower = lowerBoundL1(ascending, capacity);
+    int upper = firstFitDecreasing(ascending, capacity);
+    if (lower == upper) {
+      return lower;
+    }
+    lower = Math.max(lower, lowerBoundL2(ascending, capacity));
+    if (lower == upper) {
+      return lower;
+    }
+    return new Search(ascending, lower, upper).run();
+  }
+
+  /**
+   * Total size divided by the capacity, rounded up.
+   */
+  public static int lowerBoundL1(int[] sizes, int capacity) {
+    long total = 0;
+    for (int size : sizes) {
+      total += size;
+    }
+    return (int) ((total + capacity - 1) / capacity);
+  }
+
+  /**
+   * Martello-Toth bound L2: for a threshold a, items larger than capacity - a and items larger
+   * than half the capacity each need their own bin, and items of at least a only partially fit
+   * into the room the latter leave.
+   *
+   * @param ascending item sizes in ascending order.
+   */
+  public static int lowerBoundL2(int[] ascending, int capacity) {
+    int n = ascending.length;
+    int best = 0;
+    int previous = -1;
+    // Only thresholds equal to an item size (and 0) can change the bound.
+    for (int t = -1; t < n; t++) {
+      int a = t < 0 ? 0 : ascending[t];
+      if (2 * a > capacity) {
+        break;
+      }
+      if (a == previous) {
+        continue;
+      }
+      previous = a;
+      int large = 0;
+      int medium = 0;
+      long mediumSize = 0;
+      long smallSize = 0;
+      for (int size : ascending) {
+        if (size > capacity - a) {
+          large++;
+        } else if (2 * size > capacity) {
+          medium++;
+          mediumSize += size;
+        } else if (size >= a) {
+          smallSize += size;
+        }
+      }
+      long room = (long) medium * capacity - mediumSize;
+      long overflow = Math.max(0, smallSize - room);
+      best = Math.max(best, large + medium + (int) ((overflow + capacity - 1) / capacity));
+    }
+    return best;
+  }
+
+  /**
+   * Number of bins of the first-fit decreasing packing.
+   *
+   * @param ascending item sizes in ascending order.
+   */
+  public static int firstFitDecreasing(int[] ascending, int capacity) {
+    int[] load = new int[ascending.length];
+    int bins = 0;
+    for (int i = ascending.length - 1; i >= 0; i--) {
+      int bin = 0;
+      while (bin < bins && load[bin] + ascending[i] > capacity) {
+        bin++;
+      }
+      if (bin == bins) {
+        bins++;
+      }
+      load[bin] += ascending[i];
+    }
+    return bins;
+  }
+
+  /**
+   * Depth-first search over the bins of the items, largest item first. Bins with the same load
+   * are interchangeable, so only the first of them is tried.
+   */
+  private class Search {
+
+    private final int[] descending;
+    /**
+     * Total size of the items from every index on.
+     */
+    private final long[] remaining;
+    private final int lower;
+    private final int[] load;
+    private int best;
+    private int nodes = 0;
+
+    Search(int[] ascending, int lower, int upper) {
+      descending = new int[ascending.length];
+      for (int i = 0; i < ascending.length; i++) {
+        descending[i] = ascending[ascending.length - 1 - i];
+      }
+      remaining = new long[ascending.length + 1];
+      for (int i = ascending.length - 1; i >= 0; i--) {
+        remaining[i] = remaining[i + 1] + descending[i];
+      }
+      this.lower = lower;
+      this.best = upper;
+      this.load = new int[ascending.length];
+    }
+
+    int run() {
+      place(0, 0);
+      // Without a proof the lower bound is all that is known.
+      return nodes > MAX_NODES ? lower : best;
+    }
+
+    private void place(int item, int bins) {
+      if (best == lower || ++nodes > MAX_NODES) {
+        return;
+      }
+      if (item == descending.length) {
+        best = bins;
+        return;
+      }
+      // The remaining items that do not fit into the open bins need new ones.
+      long free = (long) bins * capacity - (remaining[0] - remaining[item]);
+      long overflow = Math.max(0, remaining[item] - free);
+      if (bins + (overflow + capacity - 1) / capacity >= best) {
+        return;
+      }
+      int size = descending[item];
+      // An item that fills a bin exactly goes there, nothing else can do better.
+      for (int bin = 0; bin < bins; bin++) {
+        if (load[bin] + size == capacity) {
+          load[bin] += size;
+          place(item + 1, bins);
+          load[bin] -= size;
+          return;
+        }
+      }
+      // Fullest bins first, which finds tight packings early.
+      int[] order = candidates(bins, size);
+      for (int bin : order) {
+        load[bin] += size;
+        place(item + 1, bins);
+        load[bin] -= size;
+      }
+      if (bins + 1 < best) {
+        load[bins] = size;
+        place(item + 1, bins + 1);
+        load[bins] = 0;
+      }
+    }
+
+    /**
+     * Open bins with room for the item, one per distinct load, fullest first.
+     */
+    private int[] candidates(int bins, int size) {
+      int count = 0;
+      int[] order = new int[bins];
+      for (int bin = 0; bin < bins; bin++) {
+        if (load[bin] + size <= capacity && !isDuplicate(bin)) {
+          order[count++] = bin;
+        }
+      }
+      // Insertion sort, the number of bins is small.
+      for (int i = 1; i < count; i++) {
+        int bin = order[i];
+        int j = i - 1;
+        while (j >= 0 && load[order[j]] < load[bin]) {
+          order[j + 1] = order[j];
+          j--;
+        }
+        order[j + 1] = bin;
+      }
+      return Arrays.copyOf(order, count);
+    }
+
+    private boolean isDuplicate(int bin) {
+      for (int other = 0; other < bin; other++) {
+        if (load[other] == load[bin]) {
+          return true;
+        }
+      }
+      return false;
+    }
+  }
+
+  /**
+   * Sorted item sizes, compared by value.
+   */
+  private static final class Key {
+
+    final int[] sizes;
+    final int hash;
+
+    Key(int[] sizes) {
+      this.sizes = sizes;
+      this.hash = Arrays.hashCode(sizes);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      return other instanceof Key && Arrays.equals(sizes, ((Key) other).sizes);
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+  }
+}
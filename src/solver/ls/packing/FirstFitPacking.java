@@ -0,0 +1,161 @@
+package solver.ls.packing;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.Random;
+import java.util.TreeSet;
+
+/**
+ * Assigns items to a fixed number of bins with randomized first-fit decreasing, the pure-Java
+ * alternative to solving the bin packing exactly. The sizes are perturbed randomly to get a
+ * different packing on every call, less so with every failed attempt. Items that fit nowhere are
+ * made room for by moving another item out of the way, and as a last resort overload a bin.
+ */
+public class FirstFitPacking {
+
+  /**
+   * Packings tried before the best one is repaired.
+   */
+  private static final int MAX_ATTEMPTS = 20;
+  /**
+   * Consecutive attempts without a smaller overflow after which the search gives up early.
+   */
+  private static final int PATIENCE = 6;
+  /**
+   * Largest relative perturbation of the sizes, in the first attempt. The last attempt is plain
+   * first-fit decreasing.
+   */
+  private static final double MAX_NOISE = 0.3;
+
+  private FirstFitPacking() {
+  }
+
+  /**
+   * Assigns the items to the bins.
+   *
+   * @param sizes    size of every item.
+   * @param numBins  number of bins.
+   * @param capacity capacity of every bin.
+   * @param random   random number generator.
+   * @return bin of every item. Bins are overloaded when no attempt and no repair fit all items,
+   *     which can happen on tight instances even if a feasible assignment exists.
+   */
+  public static int[] assign(int[] sizes, int numBins, int capacity, Random random) {
+    int[] best = null;
+    long bestOverflow = Long.MAX_VALUE;
+    int failedAttempts = 0;
+    for (int attempt = 0; attempt < MAX_ATTEMPTS && bestOverflow > 0; attempt++) {
+      double noise = MAX_NOISE * (MAX_ATTEMPTS - 1 - attempt) / (MAX_ATTEMPTS - 1);
+      int[] bins = pack(sizes, numBins, capacity, order(sizes, noise, random));
+      long overflow = overflow(sizes, bins, numBins, capacity);
+      if (overflow < bestOverflow) {
+        best = bins;
+        bestOverflow = overflow;
+        failedAttempts = 0;
+      } else if (++failedAttempts == PATIENCE) {
+        // The packing is too tight for first-fit, more attempts are unlikely to help.
+        break;
+      }
+    }
+    return best;
+  }
+
+  /**
+   * Items by decreasing perturbed size.
+   */
+  private static Integer[] order(int[] sizes, double noise, Random random) {
+    double[] keys = new double[sizes.length];
+    Integer[] order = new Integer[sizes.length];
+    for (int i = 0; i < sizes.length; i++) {
+      keys[i] = sizes[i] * (1 + noise * random.nextDouble());
+      order[i] = i;
+    }
+    Arrays.sort(order, Comparator.comparingDouble(i -> -keys[i]));
+    return order;
+  }
+
+  private static int[] pack(int[] sizes, int numBins, int capacity, Integer[] order) {
+    int[] bins = new int[sizes.length];
+    int[] load = new int[numBins];
+    Arrays.fill(bins, -1);
+    List<Integer> unplaced = new ArrayList<>();
+    for (int item : order) {
+      int bin = 0;
+      while (bin < numBins && load[bin] + sizes[item] > capacity) {
+        bin++;
+      }
+      if (bin < numBins) {
+        bins[item] = bin;
+        load[bin] += sizes[item];
+      } else {
+        unplaced.add(item);
+      }
+    }
+    if (!unplaced.isEmpty()) {
+      // Bins by decreasing room, so repairs need not scan all of them.
+      NavigableSet<Integer> byRoom = new TreeSet<>(
+          Comparator.comparingInt((Integer bin) -> load[bin]).thenComparingInt(bin -> bin));
+      for (int bin = 0; bin < numBins; bin++) {
+        byRoom.add(bin);
+      }
+      for (int item : unplaced) {
+        repair(item, sizes, bins, load, capacity, byRoom);
+      }
+    }
+    return bins;
+  }
+
+  /**
+   * Places an item that fits into no bin: moves another item to the bin with the most room if
+   * that makes room for this one, and otherwise overloads the emptiest bin.
+   *
+   * @param byRoom all bins by decreasing room, kept up to date.
+   */
+  private static void repair(int item, int[] sizes, int[] bins, int[] load, int capacity,
+      NavigableSet<Integer> byRoom) {
+    int roomiest = byRoom.first();
+    Integer next = byRoom.higher(roomiest);
+    int runnerUp = next != null ? next : roomiest;
+    for (int other = 0; other < sizes.length; other++) {
+      int from = bins[other];
+      if (from < 0 || load[from] - sizes[other] + sizes[item] > capacity) {
+        continue;
+      }
+      int to = from != roomiest ? roomiest : runnerUp;
+      if (to != from && load[to] + sizes[other] <= capacity) {
+        bins[other] = to;
+        bins[item] = from;
+        addLoad(to, sizes[other], load, byRoom);
+        addLoad(from, sizes[item] - sizes[other], load, byRoom);
+        return;
+      }
+    }
+
+    bins[item] = roomiest;
+    addLoad(roomiest, sizes[item], load, byRoom);
+  }
+
+  /**
+   * Changes the load of a bin, keeping its place in the index.
+   */
+  private static void addLoad(int bin, int size, int[] load, NavigableSet<Integer> byRoom) {
+    byRoom.remove(bin);
+    load[bin] += size;
+    byRoom.add(bin);
+  }
+
+  private static long overflow(int[] sizes, int[] bins, int numBins, int capacity) {
+    long[] load = new long[numBins];
+    for (int i = 0; i < sizes.length; i++) {
+      load[bins[i]] += sizes[i];
+    }
+    long overflow = 0;
+    for (long binLoad : load) {
+      overflow += Math.max(0, binLoad - capacity);
+    }
+    return overflow;
+  }
+}
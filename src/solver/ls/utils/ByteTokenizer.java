@@ -0,0 +1,152 @@
+package solver.ls.utils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.NoSuchElementException;
+
+/**
+ * Whitespace-separated number reader working directly on bytes, without regular expressions.
+ * Small files are read into the heap, large ones are memory-mapped.
+ */
+public class ByteTokenizer {
+
+  /**
+   * Files larger than this (bytes) are memory-mapped instead of read.
+   */
+  private static final long MAP_THRESHOLD = 64L * 1024 * 1024;
+  /**
+   * Exact powers of ten, used for fast decimal parsing.
+   */
+  private static final double[] POWERS_OF_TEN = {1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8,
+      1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+
+  private final ByteBuffer buffer;
+
+  public ByteTokenizer(ByteBuffer buffer) {
+    this.buffer = buffer;
+  }
+
+  public static ByteTokenizer open(Path path) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      long size = channel.size();
+      if (size > MAP_THRESHOLD) {
+        return new ByteTokenizer(channel.map(MapMode.READ_ONLY, 0, size));
+      }
+      ByteBuffer buffer = ByteBuffer.allocate((int) size);
+      while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+        // Keep reading until the whole file is in memory.
+      }
+      buffer.flip();
+      return new ByteTokenizer(buffer);
+    }
+  }
+
+  private static boolean isWhitespace(byte b) {
+    return b == ' ' || b == '\n' || b == '\r' || b == '\t' || b == '\f';
+  }
+
+  private void skipWhitespace() {
+    while (buffer.hasRemaining() && isWhitespace(buffer.get(buffer.position()))) {
+      buffer.get();
+    }
+    if (!buffer.hasRemaining()) {
+      throw new NoSuchElementException("Unexpected end of input.");
+    }
+  }
+
+  public boolean hasNext() {
+    while (buffer.hasRemaining() && isWhitespace(buffer.get(buffer.position()))) {
+      buffer.get();
+    }
+    return buffer.hasRemaining();
+  }
+
+  private String nextToken() {
+    skipWhitespace();
+    StringBuilder token = new StringBuilder();
+    while (buffer.hasRemaining() && !isWhitespace(buffer.get(buffer.position()))) {
+      token.append((char) buffer.get());
+    }
+    return token.toString();
+  }
+
+  public int nextInt() {
+    skipWhitespace();
+    int start = buffer.position();
+    boolean negative = false;
+    byte b = buffer.get(start);
+    if (b == '-' || b == '+') {
+      negative = b == '-';
+      buffer.get();
+    }
+    long value = 0;
+    int digits = 0;
+    while (buffer.hasRemaining()) {
+      b = buffer.get(buffer.position());
+      if (b < '0' || b > '9') {
+        break;
+      }
+      value = value * 10 + (b - '0');
+      digits++;
+      buffer.get();
+      if (value > (long) Integer.MAX_VALUE + 1) {
+        break;
+      }
+    }
+    if (digits == 0 || (buffer.hasRemaining() && !isWhitespace(buffer.get(buffer.position())))) {
+      buffer.position(start);
+      throw new NumberFormatException("Expected an integer, got \"" + nextToken() + "\".");
+    }
+    return Math.toIntExact(negative ? -value : value);
+  }
+
+  public double nextDouble() {
+    skipWhitespace();
+    int start = buffer.position();
+    boolean negative = false;
+    byte b = buffer.get(start);
+    if (b == '-' || b == '+') {
+      negative = b == '-';
+      buffer.get();
+    }
+    // Fast path: plain decimals whose digits fit into a double exactly.
+    long mantissa = 0;
+    int digits = 0;
+    int fractionDigits = 0;
+    boolean seenPoint = false;
+    boolean fast = true;
+    while (buffer.hasRemaining()) {
+      b = buffer.get(buffer.position());
+      if (b >= '0' && b <= '9') {
+        mantissa = mantissa * 10 + (b - '0');
+        digits++;
+        if (seenPoint) {
+          fractionDigits++;
+        }
+      } else if (b == '.' && !seenPoint) {
+        seenPoint = true;
+      } else if (isWhitespace(b)) {
+        break;
+      } else {
+        fast = false;
+        break;
+      }
+      buffer.get();
+      if (digits > 15) {
+        fast = false;
+        break;
+      }
+    }
+    if (fast && digits > 0 && fractionDigits < POWERS_OF_TEN.length) {
+      double value = mantissa / POWERS_OF_TEN[fractionDigits];
+      return negative ? -value : value;
+    }
+    // Exponents, long mantissas etc. go through the standard parser.
+    buffer.position(start);
+    return Double.parseDouble(nextToken());
+  }
+}
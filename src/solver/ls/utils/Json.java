@@ -0,0 +1,189 @@
+package solver.ls.utils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Minimal JSON support for flat objects with string, number, boolean and null values, which is
+ * all the JSON-lines protocols of the solver need.
+ */
+public class Json {
+
+  private final String text;
+  private int position;
+
+  private Json(String text) {
+    this.text = text;
+  }
+
+  /**
+   * Parses a flat JSON object.
+   *
+   * @throws IllegalArgumentException if the text is not a flat JSON object.
+   */
+  public static Map<String, Object> parseObject(String text) {
+    Json parser = new Json(text);
+    Map<String, Object> object = parser.readObject();
+    parser.skipWhitespace();
+    if (parser.position != text.length()) {
+      throw parser.error("Trailing characters");
+    }
+    return object;
+  }
+
+  /**
+   * Quotes and escapes a string value.
+   */
+  public static String quote(String value) {
+    StringBuilder sb = new StringBuilder("\"");
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      switch (c) {
+        case '"':
+          sb.append("\\\"");
+          break;
+        case '\\':
+          sb.append("\\\\");
+          break;
+        case '\n':
+          sb.append("\\n");
+          break;
+        case '\r':
+          sb.append("\\r");
+          break;
+        case '\t':
+          sb.append("\\t");
+          break;
+        default:
+          if (c < 0x20) {
+            sb.append(String.format("\\u%04x", (int) c));
+          } else {
+            sb.append(c);
+          }
+      }
+    }
+    return sb.append('"').toString();
+  }
+
+  private Map<String, Object> readObject() {
+    Map<String, Object> object = new LinkedHashMap<>();
+    expect('{');
+    skipWhitespace();
+    if (peek() == '}') {
+      position++;
+      return object;
+    }
+    while (true) {
+      skipWhitespace();
+      String key = readString();
+      skipWhitespace();
+      expect(':');
+      skipWhitespace();
+      object.put(key, readValue());
+      skipWhitespace();
+      char c = next();
+      if (c == '}') {
+        return object;
+      } else if (c != ',') {
+        throw error("Expected ',' or '}'");
+      }
+    }
+  }
+
+  private Object readValue() {
+    char c = peek();
+    if (c == '"') {
+      return readString();
+    } else if (text.startsWith("true", position)) {
+      position += 4;
+      return Boolean.TRUE;
+    } else if (text.startsWith("false", position)) {
+      position += 5;
+      return Boolean.FALSE;
+    } else if (text.startsWith("null", position)) {
+      position += 4;
+      return null;
+    } else if (c == '-' || (c >= '0' && c <= '9')) {
+      int start = position;
+      while (position < text.length() && "+-0123456789.eE".indexOf(text.charAt(position)) >= 0) {
+        position++;
+      }
+      try {
+        return Double.parseDouble(text.substring(start, position));
+      } catch (NumberFormatException e) {
+        throw error("Malformed number");
+      }
+    }
+    throw error("Unsupported value");
+  }
+
+  private String readString() {
+    expect('"');
+    StringBuilder sb = new StringBuilder();
+    while (true) {
+      char c = next();
+      if (c == '"') {
+        return sb.toString();
+      } else if (c == '\\') {
+        char escaped = next();
+        switch (escaped) {
+          case 'n':
+            sb.append('\n');
+            break;
+          case 'r':
+            sb.append('\r');
+            break;
+          case 't':
+            sb.append('\t');
+            break;
+          case 'b':
+            sb.append('\b');
+            break;
+          case 'f':
+            sb.append('\f');
+            break;
+          case 'u':
+            if (position + 4 > text.length()) {
+              throw error("Malformed escape");
+            }
+            sb.append((char) Integer.parseInt(text.substring(position, position + 4), 16));
+            position += 4;
+            break;
+          default:
+            sb.append(escaped);
+        }
+      } else {
+        sb.append(c);
+      }
+    }
+  }
+
+  private void skipWhitespace() {
+    while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+      position++;
+    }
+  }
+
+  private char peek() {
+    if (position >= text.length()) {
+      throw error("Unexpected end of input");
+    }
+    return text.charAt(position);
+  }
+
+  private char next() {
+    char c = peek();
+    position++;
+    return c;
+  }
+
+  private void expect(char c) {
+    if (next() != c) {
+      throw error("Expected '" + c + "'");
+    }
+  }
+
+  private IllegalArgumentException error(String message) {
+    return new IllegalArgumentException(message + " at position " + position + ".");
+  }
+}
@@ -0,0 +1,20 @@
+package solver.ls.utils;
+
+public enum Verbosity {
+  /**
+   * Only the final result.
+   */
+  QUIET,
+  /**
+   * Instance summary and run statistics.
+   */
+  NORMAL,
+  /**
+   * Everything, including per-customer data.
+   */
+  VERBOSE;
+
+  public boolean atLeast(Verbosity level) {
+    return compareTo(level) >= 0;
+  }
+}